@@ -1,13 +1,18 @@
 package barry;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
 
 import barry.exception.BarryException;
 import barry.parser.ParsedInput;
 import barry.parser.Parser;
 import barry.storage.Storage;
+import barry.storage.StorageOptions;
 import barry.task.Deadline;
 import barry.task.Event;
 import barry.task.Task;
@@ -20,16 +25,32 @@ import barry.ui.Ui;
  *
  * <p>Barry coordinates interactions between the {@code Ui} (user I/O), {@code Parser} (command parsing),
  * {@code TaskList} (in-memory task state), and {@code Storage} (persistence).
- * It runs the main input loop, executes user commands, and saves tasks whenever the list changes.</p>
+ * It runs the main input loop, executes user commands, and saves tasks whenever the list changes.
+ * Saves are journaled, so each command only appends its own changes to disk.</p>
+ *
+ * <p>The task list is versioned: before each command that changes it, Barry keeps the version it is about to
+ * leave, up to a bounded number of commands, so that {@code undo} and {@code redo} can restore them. Versions
+ * share almost all of their structure, so this history costs little memory even for large lists.</p>
  */
 public class Barry {
     private static final String SAMPLE_TASK_BOOTSTRAP_MESSAGE =
             "First voyage detected. I loaded a few sample tasks to get you started.";
     private static final String ERROR_DUPLICATE_TASK =
             "Duplicate task detected. This task already exists in your list.";
+    private static final int JOURNAL_COMPACTION_RECORDS = 10_000;
+    private static final long JOURNAL_COMPACTION_BYTES = 1L << 20;
+    private static final int MAX_UNDO_STEPS = 100;
+    private static final String ERROR_NOTHING_TO_UNDO = "There is nothing to undo.";
+    private static final String ERROR_NOTHING_TO_REDO = "There is nothing to redo.";
+    private static final String ERROR_UNKNOWN_TASK_ID = "No task has the ID #";
+    private static final String ERROR_TASK_GIVEN_TWICE = "Task number %d was given twice, once as #%d.";
     private final Ui ui;
     private final TaskList userList;
     private final Storage storage;
+    private final Clock clock;
+    // Guarded by the task list's atomic sections, like the list itself.
+    private final Deque<TaskList.Version> undoVersions = new ArrayDeque<>();
+    private final Deque<TaskList.Version> redoVersions = new ArrayDeque<>();
     private String startupMessage = null;
     private boolean shouldUseShortWelcome = false;
     private boolean lastResponseWasError = false;
@@ -44,9 +65,37 @@ public class Barry {
      * @param filePath Relative path to the save file (e.g., "./data/barry.txt").
      */
     public Barry(String filePath) {
+        this(filePath, StorageOptions.defaults()
+                .withJournal(true)
+                .withCompactionThreshold(JOURNAL_COMPACTION_RECORDS, JOURNAL_COMPACTION_BYTES));
+    }
+
+    /**
+     * Creates a new Barry chatbot instance that persists tasks with the given storage options,
+     * e.g. with write-behind enabled for scripted bursts of commands.
+     *
+     * @param filePath Relative path to the save file (e.g., "./data/barry.txt").
+     * @param storageOptions How tasks should be persisted.
+     */
+    public Barry(String filePath, StorageOptions storageOptions) {
+        this(filePath, storageOptions, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a new Barry chatbot instance that reads the current time from the given clock,
+     * e.g. a fixed clock so that date queries such as 'overdue' give repeatable answers.
+     *
+     * @param filePath Relative path to the save file (e.g., "./data/barry.txt").
+     * @param storageOptions How tasks should be persisted.
+     * @param clock Source of the current date/time.
+     */
+    public Barry(String filePath, StorageOptions storageOptions, Clock clock) {
         assert filePath != null : "filePath must not be null";
+        assert storageOptions != null : "storageOptions must not be null";
+        assert clock != null : "clock must not be null";
+        this.clock = clock;
         this.ui = new Ui();
-        this.storage = new Storage(filePath);
+        this.storage = new Storage(filePath, storageOptions);
         this.userList = loadTaskListFromStorage();
         assert ui != null : "ui must not be null";
         assert storage != null : "storage must not be null";
@@ -56,7 +105,8 @@ public class Barry {
     private TaskList loadTaskListFromStorage() {
         boolean isFirstRun = !storage.dataFileExists();
         try {
-            TaskList loadedTasks = new TaskList(storage.load());
+            TaskList loadedTasks = TaskList.versioned(storage.load());
+            loadedTasks.reserveIdsBelow(storage.getNextId());
             if (isFirstRun && loadedTasks.size() == 0) {
                 seedSampleTasks(loadedTasks);
                 shouldUseShortWelcome = true;
@@ -70,7 +120,7 @@ public class Barry {
             startupMessage = ui.formatLoadingError("Saved data was corrupted. Starting a new file. "
                     + e.getMessage()
             );
-            return new TaskList();
+            return TaskList.versioned(List.of());
         }
     }
 
@@ -128,7 +178,7 @@ public class Barry {
     private String handleCommand(ParsedInput parsedInput) throws BarryException {
         switch (parsedInput.type) {
         case LIST:
-            return handleList();
+            return handleList(parsedInput);
         case HELP:
             return handleHelp();
         case TODO:
@@ -138,13 +188,33 @@ public class Barry {
         case EVENT:
             return handleEvent(parsedInput);
         case MARK:
-            return handleMark(parsedInput.taskNumbers);
+            return handleMark(parsedInput);
         case UNMARK:
-            return handleUnmark(parsedInput.taskNumbers);
+            return handleUnmark(parsedInput);
         case DELETE:
-            return handleDelete(parsedInput.taskNumbers);
+            return handleDelete(parsedInput);
         case FIND:
             return handleFind(parsedInput);
+        case DUE:
+            return handleDue(parsedInput);
+        case OVERDUE:
+            return handleOverdue();
+        case UPCOMING:
+            return handleUpcoming(parsedInput);
+        case ON:
+            return handleOn(parsedInput);
+        case OVERLAPS:
+            return handleOverlaps();
+        case FREE:
+            return handleFree(parsedInput);
+        case MEMORY:
+            return handleMemory();
+        case COUNT:
+            return handleCount();
+        case UNDO:
+            return handleUndo();
+        case REDO:
+            return handleRedo();
         case BYE:
             return handleBye();
         default:
@@ -152,8 +222,15 @@ public class Barry {
         }
     }
 
-    private String handleList() {
-        return ui.formatTaskList(userList);
+    private String handleList(ParsedInput parsedInput) {
+        switch (parsedInput.listFilter) {
+        case DONE:
+            return ui.formatFilteredList(true, userList.findByDoneState(true));
+        case PENDING:
+            return ui.formatFilteredList(false, userList.findByDoneState(false));
+        default:
+            return ui.formatTaskList(userList);
+        }
     }
 
     private String handleHelp() {
@@ -172,47 +249,146 @@ public class Barry {
 
     private String handleEvent(ParsedInput parsedInput) throws BarryException {
         Task task = new Event(parsedInput.name, parsedInput.start, parsedInput.end);
-        return addTaskAndRespond(task);
+        if (!parsedInput.isConflictCheck) {
+            return addTaskAndRespond(task);
+        }
+        return changeTasks(() -> {
+            ensureTaskIsUnique(task);
+            userList.addTask(task);
+            List<TaskList.IndexedTask> conflicts = userList.findEventsDuring(parsedInput.start, parsedInput.end);
+            int addedNumber = userList.size();
+            conflicts.removeIf(match -> match.index1Based == addedNumber);
+            return ui.formatEventAdded(task, addedNumber, conflicts);
+        });
     }
 
-    private String handleMark(int... nums) throws BarryException {
-        validateTaskNumbers(nums);
-        ArrayList<Task> markedTasks = markTasks(nums);
-        saveTasks();
+    private String handleMark(ParsedInput parsedInput) throws BarryException {
+        ArrayList<Task> markedTasks = changeTasks(() -> markTasks(resolveTaskNumbers(parsedInput)));
         return ui.formatTaskMarked(markedTasks);
     }
 
-    private String handleUnmark(int... nums) throws BarryException {
-        validateTaskNumbers(nums);
-        ArrayList<Task> unmarkedTasks = unmarkTasks(nums);
-        saveTasks();
+    private String handleUnmark(ParsedInput parsedInput) throws BarryException {
+        ArrayList<Task> unmarkedTasks = changeTasks(() -> unmarkTasks(resolveTaskNumbers(parsedInput)));
         return ui.formatTaskUnmarked(unmarkedTasks);
     }
 
-    private String handleDelete(int... nums) throws BarryException {
-        validateTaskNumbers(nums);
-        int[] sortedNums = sortTaskNumbers(nums);
-        ArrayList<Task> tasksToDelete = collectTasksForDeletion(nums);
-        int initialSize = userList.size();
-        deleteTasksInReverse(sortedNums);
+    private String handleDelete(ParsedInput parsedInput) throws BarryException {
+        return changeTasks(() -> {
+            BitSet nums = resolveTaskNumbers(parsedInput);
+            List<Task> tasksToDelete = userList.removeAll(toIndexes(nums));
+            return ui.formatTaskDeleted(userList.size(), tasksToDelete);
+        });
+    }
+
+    private String handleUndo() throws BarryException {
+        int size = restoreFrom(undoVersions, redoVersions, ERROR_NOTHING_TO_UNDO);
+        return ui.formatUndone(size);
+    }
+
+    private String handleRedo() throws BarryException {
+        int size = restoreFrom(redoVersions, undoVersions, ERROR_NOTHING_TO_REDO);
+        return ui.formatRedone(size);
+    }
+
+    /**
+     * Restores the latest version of one history stack and keeps the version it replaces on the other.
+     *
+     * @return The number of tasks in the restored list.
+     */
+    private int restoreFrom(Deque<TaskList.Version> versions, Deque<TaskList.Version> replacedVersions,
+            String errorIfEmpty) throws BarryException {
+        int size = userList.atomically(() -> {
+            if (versions.isEmpty()) {
+                throw new BarryException(errorIfEmpty);
+            }
+            replacedVersions.push(userList.currentVersion());
+            userList.restore(versions.pop());
+            return userList.size();
+        });
         saveTasks();
-        int updatedSize = initialSize - tasksToDelete.size();
-        return ui.formatTaskDeleted(updatedSize, tasksToDelete);
+        return size;
     }
 
     private String handleFind(ParsedInput parsedInput) {
         return ui.formatFindResults(userList.findByKeyword(parsedInput.name));
     }
 
-    private String handleBye() {
+    private String handleDue(ParsedInput parsedInput) {
+        return ui.formatDueResults(parsedInput.start.toLocalDate(),
+                userList.findDeadlinesDue(parsedInput.start, parsedInput.end));
+    }
+
+    private String handleOverdue() {
+        return ui.formatOverdueResults(userList.findOverdue(LocalDateTime.now(clock)));
+    }
+
+    private String handleUpcoming(ParsedInput parsedInput) {
+        return ui.formatUpcomingResults(userList.findUpcoming(LocalDateTime.now(clock), parsedInput.count));
+    }
+
+    private String handleOn(ParsedInput parsedInput) {
+        return ui.formatScheduleResults(parsedInput.start.toLocalDate(),
+                userList.findScheduled(parsedInput.start, parsedInput.end));
+    }
+
+    private String handleOverlaps() {
+        return ui.formatEventConflicts(userList.findEventConflicts());
+    }
+
+    private String handleFree(ParsedInput parsedInput) {
+        return ui.formatFreeSlots(parsedInput.start, parsedInput.end,
+                userList.findFreeSlots(parsedInput.start, parsedInput.end, parsedInput.minDuration));
+    }
+
+    private String handleMemory() {
+        return ui.formatDescriptionMemory(userList.measureDescriptions());
+    }
+
+    private String handleCount() {
+        return ui.formatTaskCount(userList.size(), userList.countDone());
+    }
+
+    private String handleBye() throws BarryException {
+        storage.flush();
         return ui.formatBye();
     }
 
     private String addTaskAndRespond(Task task) throws BarryException {
-        ensureTaskIsUnique(task);
-        userList.addTask(task);
+        // The duplicate check and the addition form one step, so that no other thread can add the same task
+        // in between.
+        return changeTasks(() -> {
+            ensureTaskIsUnique(task);
+            userList.addTask(task);
+            return ui.formatTaskAdded(task, userList.size());
+        });
+    }
+
+    /**
+     * Runs the changes of a command as one atomic step, keeps the version before them for undo if the list
+     * changed, and saves the list. Saving happens after the step, so that other threads are not held up by the
+     * disk.
+     *
+     * @return The result of the changes.
+     */
+    private <T> T changeTasks(TaskList.AtomicSection<T, BarryException> changes) throws BarryException {
+        T result = userList.atomically(() -> {
+            TaskList.Version before = userList.currentVersion();
+            T changesResult = changes.run();
+            if (!userList.currentVersion().equals(before)) {
+                rememberForUndo(before);
+            }
+            return changesResult;
+        });
         saveTasks();
-        return ui.formatTaskAdded(task, userList.size());
+        return result;
+    }
+
+    private void rememberForUndo(TaskList.Version version) {
+        undoVersions.push(version);
+        if (undoVersions.size() > MAX_UNDO_STEPS) {
+            undoVersions.removeLast();
+        }
+        redoVersions.clear();
     }
 
     private void saveTasks() throws BarryException {
@@ -221,11 +397,8 @@ public class Barry {
 
     private void ensureTaskIsUnique(Task newTask) throws BarryException {
         assert newTask != null : "new task must not be null";
-        for (int i = 0; i < userList.size(); i++) {
-            Task existingTask = userList.getTask(i);
-            if (existingTask.hasSameDetails(newTask)) {
-                throw new BarryException(ERROR_DUPLICATE_TASK);
-            }
+        if (userList.containsSameDetails(newTask)) {
+            throw new BarryException(ERROR_DUPLICATE_TASK);
         }
     }
 
@@ -238,56 +411,52 @@ public class Barry {
         storage.save(tasks);
     }
 
-    private void validateTaskNumbers(int[] nums) throws BarryException {
-        assert nums != null : "task numbers must not be null";
-        for (int n : nums) {
-            assert n > 0 : "task numbers must be positive";
-            userList.ensureIndexInRange1Based(n);
+    /**
+     * Returns the numbers of the tasks a command gives by number or by ID. Numbers shift as tasks are deleted, so
+     * IDs must be resolved in the same atomic step as the change that uses the numbers.
+     */
+    private BitSet resolveTaskNumbers(ParsedInput parsedInput) throws BarryException {
+        BitSet nums = (BitSet) parsedInput.taskNumbers.clone();
+        if (!nums.isEmpty()) {
+            validateTaskNumbers(nums);
+        }
+        for (long id : parsedInput.taskIds) {
+            int position = userList.findPositionById(id);
+            if (position < 0) {
+                throw new BarryException(ERROR_UNKNOWN_TASK_ID + id + ".");
+            }
+            if (nums.get(position + 1)) {
+                throw new BarryException(String.format(ERROR_TASK_GIVEN_TWICE, position + 1, id));
+            }
+            nums.set(position + 1);
         }
+        return nums;
     }
 
-    private Task getTaskByNumber(int number) {
-        return userList.getTask(number - 1);
+    private void validateTaskNumbers(BitSet nums) throws BarryException {
+        assert nums != null && !nums.isEmpty() : "task numbers must not be empty";
+        assert nums.nextSetBit(0) > 0 : "task numbers must be positive";
+        // Every number is positive, so the list holds them all if it holds the highest one.
+        userList.ensureIndexInRange1Based(nums.length() - 1);
     }
 
-    private ArrayList<Task> markTasks(int... nums) {
-        ArrayList<Task> marked = new ArrayList<>();
-        for (int n : nums) {
-            Task task = getTaskByNumber(n);
-            task.mark();
-            marked.add(task);
+    private ArrayList<Task> markTasks(BitSet nums) {
+        ArrayList<Task> marked = new ArrayList<>(nums.cardinality());
+        for (int n = nums.nextSetBit(0); n >= 0; n = nums.nextSetBit(n + 1)) {
+            marked.add(userList.markTask(n - 1));
         }
         return marked;
     }
 
-    private ArrayList<Task> unmarkTasks(int... nums) {
-        ArrayList<Task> unmarked = new ArrayList<>();
-        for (int n : nums) {
-            Task task = getTaskByNumber(n);
-            task.unmark();
-            unmarked.add(task);
+    private ArrayList<Task> unmarkTasks(BitSet nums) {
+        ArrayList<Task> unmarked = new ArrayList<>(nums.cardinality());
+        for (int n = nums.nextSetBit(0); n >= 0; n = nums.nextSetBit(n + 1)) {
+            unmarked.add(userList.unmarkTask(n - 1));
         }
         return unmarked;
     }
 
-    private int[] sortTaskNumbers(int... nums) {
-        int[] copy = Arrays.copyOf(nums, nums.length);
-        Arrays.sort(copy);
-        return copy;
-    }
-
-    private ArrayList<Task> collectTasksForDeletion(int... nums) {
-        ArrayList<Task> tasksToDelete = new ArrayList<>();
-        for (int n : nums) {
-            tasksToDelete.add(getTaskByNumber(n));
-        }
-        return tasksToDelete;
-    }
-
-    private void deleteTasksInReverse(int... sortedNums) {
-        for (int i = sortedNums.length - 1; i >= 0; i--) {
-            int n = sortedNums[i];
-            userList.removeTask(n - 1);
-        }
+    private BitSet toIndexes(BitSet nums) {
+        return nums.get(1, Math.max(1, nums.length()));
     }
 }
@@ -13,5 +13,15 @@ public enum Command {
     UNMARK,
     DELETE,
     BYE,
-    FIND
+    FIND,
+    DUE,
+    OVERDUE,
+    UPCOMING,
+    ON,
+    OVERLAPS,
+    FREE,
+    MEMORY,
+    COUNT,
+    UNDO,
+    REDO
 }
@@ -0,0 +1,10 @@
+package barry.parser;
+
+/**
+ * Represents which tasks a LIST command shows, by their done state.
+ */
+public enum ListFilter {
+    ALL,
+    DONE,
+    PENDING
+}
@@ -1,13 +1,15 @@
 package barry.parser;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.BitSet;
 
 /**
  * Represents a parsed user command and its extracted arguments.
  *
  * <p>{@code ParsedInput} is produced by {@link barry.parser.Parser} and consumed by the main application
  * to execute the intended action. Depending on the command type, it may store a task description,
- * date/time values, and/or one or more task numbers.</p>
+ * date/time values, and/or one or more task numbers or task IDs.</p>
  */
 public class ParsedInput {
     public final Command type;
@@ -18,35 +20,70 @@ public class ParsedInput {
     // For DEADLINE
     public final LocalDateTime by;
 
-    // For EVENT
+    // For EVENT, and the period of DUE / ON / FREE
     public final LocalDateTime start;
     public final LocalDateTime end;
 
-    // For MARK / UNMARK / DELETE
-    public final int[] taskNumbers;
+    // For MARK / UNMARK / DELETE: bit n is set if task number n was given.
+    public final BitSet taskNumbers;
+
+    // For MARK / UNMARK / DELETE: the task IDs given as #id.
+    public final long[] taskIds;
+
+    // For UPCOMING
+    public final int count;
+
+    // For EVENT: whether to report the events the new one overlaps with.
+    public final boolean isConflictCheck;
+
+    // For FREE: the shortest gap worth reporting.
+    public final Duration minDuration;
+
+    // For LIST: which tasks to show.
+    public final ListFilter listFilter;
 
     private ParsedInput(Command type,
                         String name,
                         LocalDateTime by,
                         LocalDateTime start,
                         LocalDateTime end,
-                        int[] taskNumbers) {
+                        BitSet taskNumbers,
+                        long[] taskIds,
+                        int count,
+                        boolean isConflictCheck,
+                        Duration minDuration,
+                        ListFilter listFilter) {
         this.type = type;
         this.name = name;
         this.by = by;
         this.start = start;
         this.end = end;
         this.taskNumbers = taskNumbers;
+        this.taskIds = taskIds;
+        this.count = count;
+        this.isConflictCheck = isConflictCheck;
+        this.minDuration = minDuration;
+        this.listFilter = listFilter;
     }
 
     /**
-     * Creates a parsed representation for commands that have no arguments (e.g., LIST, BYE).
+     * Creates a parsed representation for commands that have no arguments (e.g., HELP, BYE).
      *
      * @param type The command type.
      * @return A {@code ParsedInput} representing the command.
      */
     public static ParsedInput simple(Command type) {
-        return new ParsedInput(type, null, null, null, null, null);
+        return new ParsedInput(type, null, null, null, null, null, null, 0, false, null, null);
+    }
+
+    /**
+     * Creates a parsed representation of a LIST command.
+     *
+     * @param listFilter Which tasks to show.
+     * @return A {@code ParsedInput} containing the filter.
+     */
+    public static ParsedInput list(ListFilter listFilter) {
+        return new ParsedInput(Command.LIST, null, null, null, null, null, null, 0, false, null, listFilter);
     }
 
     /**
@@ -56,7 +93,7 @@ public class ParsedInput {
      * @return A {@code ParsedInput} containing the todo description.
      */
     public static ParsedInput todo(String name) {
-        return new ParsedInput(Command.TODO, name, null, null, null, null);
+        return new ParsedInput(Command.TODO, name, null, null, null, null, null, 0, false, null, null);
     }
 
     /**
@@ -67,7 +104,7 @@ public class ParsedInput {
      * @return A {@code ParsedInput} containing deadline details.
      */
     public static ParsedInput deadline(String name, LocalDateTime by) {
-        return new ParsedInput(Command.DEADLINE, name, by, null, null, null);
+        return new ParsedInput(Command.DEADLINE, name, by, null, null, null, null, 0, false, null, null);
     }
 
     /**
@@ -79,7 +116,20 @@ public class ParsedInput {
      * @return A {@code ParsedInput} containing event details.
      */
     public static ParsedInput event(String name, LocalDateTime start, LocalDateTime end) {
-        return new ParsedInput(Command.EVENT, name, null, start, end, null);
+        return event(name, start, end, false);
+    }
+
+    /**
+     * Creates a parsed representation of an EVENT command that may ask for overlapping events to be reported.
+     *
+     * @param name The event description.
+     * @param start The start date/time.
+     * @param end The end date/time.
+     * @param isConflictCheck Whether to report the existing events the new one overlaps with.
+     * @return A {@code ParsedInput} containing event details.
+     */
+    public static ParsedInput event(String name, LocalDateTime start, LocalDateTime end, boolean isConflictCheck) {
+        return new ParsedInput(Command.EVENT, name, null, start, end, null, null, 0, isConflictCheck, null, null);
     }
 
     /**
@@ -87,11 +137,24 @@ public class ParsedInput {
      * (e.g., MARK, UNMARK, DELETE).
      *
      * @param type The command type.
-     * @param taskNumbers One or more 1-based task indices.
+     * @param taskNumbers One or more 1-based task indices, as the set bits of a bitset.
      * @return A {@code ParsedInput} containing the task numbers.
      */
-    public static ParsedInput numbers(Command type, int[] taskNumbers) {
-        return new ParsedInput(type, null, null, null, null, taskNumbers);
+    public static ParsedInput numbers(Command type, BitSet taskNumbers) {
+        return numbers(type, taskNumbers, new long[0]);
+    }
+
+    /**
+     * Creates a parsed representation of commands that operate on tasks given by number or by ID
+     * (e.g., MARK, UNMARK, DELETE).
+     *
+     * @param type The command type.
+     * @param taskNumbers 1-based task indices, as the set bits of a bitset.
+     * @param taskIds Distinct task IDs.
+     * @return A {@code ParsedInput} containing the task numbers and IDs.
+     */
+    public static ParsedInput numbers(Command type, BitSet taskNumbers, long[] taskIds) {
+        return new ParsedInput(type, null, null, null, null, taskNumbers, taskIds, 0, false, null, null);
     }
 
     /**
@@ -101,6 +164,40 @@ public class ParsedInput {
      * @return A {@code ParsedInput} containing the specified keyword.
      */
     public static ParsedInput find(String keyword) {
-        return new ParsedInput(Command.FIND, keyword, null, null, null, null);
+        return new ParsedInput(Command.FIND, keyword, null, null, null, null, null, 0, false, null, null);
+    }
+
+    /**
+     * Creates a parsed representation of a command that queries a period (e.g., DUE, ON).
+     *
+     * @param type The command type.
+     * @param start Start of the period, inclusive.
+     * @param end End of the period, exclusive.
+     * @return A {@code ParsedInput} containing the period.
+     */
+    public static ParsedInput period(Command type, LocalDateTime start, LocalDateTime end) {
+        return new ParsedInput(type, null, null, start, end, null, null, 0, false, null, null);
+    }
+
+    /**
+     * Creates a parsed representation of an UPCOMING command.
+     *
+     * @param count The maximum number of tasks to show.
+     * @return A {@code ParsedInput} containing the count.
+     */
+    public static ParsedInput upcoming(int count) {
+        return new ParsedInput(Command.UPCOMING, null, null, null, null, null, null, count, false, null, null);
+    }
+
+    /**
+     * Creates a parsed representation of a FREE command.
+     *
+     * @param start Start of the period to search, inclusive.
+     * @param end End of the period to search, exclusive.
+     * @param minDuration The shortest free slot to report.
+     * @return A {@code ParsedInput} containing the period and minimum duration.
+     */
+    public static ParsedInput free(LocalDateTime start, LocalDateTime end, Duration minDuration) {
+        return new ParsedInput(Command.FREE, null, null, start, end, null, null, 0, false, minDuration, null);
     }
 }
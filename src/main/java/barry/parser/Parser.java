@@ -1,10 +1,14 @@
 package barry.parser;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import barry.exception.BarryException;
@@ -20,10 +24,21 @@ public class Parser {
     private static final String INPUT_DATE_PATTERN = "uuuu-MM-dd HHmm";
     private static final DateTimeFormatter IN_DATE_FORMAT =
             DateTimeFormatter.ofPattern(INPUT_DATE_PATTERN).withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter IN_DAY_FORMAT =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd").withResolverStyle(ResolverStyle.STRICT);
+    private static final int DEFAULT_UPCOMING_COUNT = 5;
+    private static final String CONFLICT_CHECK_FLAG = "/check";
+    // Caps the bitset built for the task numbers of a command at 8 MiB.
+    private static final int MAX_TASK_NUMBER = 1 << 26;
+    private static final char RANGE_SEPARATOR = '-';
+    private static final String ID_PREFIX = "#";
     private static final String ERROR_EMPTY_INPUT = "Input command cannot be empty.";
     private static final String ERROR_INVALID_COMMAND = "Invalid command: Use 'todo', 'deadline', 'event', 'list', "
-            + "'mark', 'unmark', 'delete', 'find', 'help', or 'bye'";
+            + "'mark', 'unmark', 'delete', 'find', 'due', 'overdue', 'upcoming', 'on', 'overlaps', 'free', 'memory', "
+            + "'count', 'undo', 'redo', 'help', or 'bye'";
     private static final String ERROR_EXTRA_ARGUMENTS = "This command does not accept extra arguments.";
+    private static final String ERROR_LIST_FILTER = "List does not accept extra arguments other than 'done' or "
+            + "'pending'.";
     private static final String ERROR_TODO_EMPTY = "Oops! The description of a ToDo cannot be empty.";
     private static final String ERROR_DEADLINE_EMPTY = "Oops! The description of a Deadline cannot be empty.";
     private static final String ERROR_DEADLINE_MISSING_BY = "You need to input a date for the deadline of this task! "
@@ -48,9 +63,22 @@ public class Parser {
     private static final String ERROR_NUMBERS_NOT_INTEGER = "Task numbers must be integers.";
     private static final String ERROR_NUMBERS_NON_POSITIVE = "Task numbers must be positive integers.";
     private static final String ERROR_NUMBERS_DUPLICATE = "Duplicate task numbers are not allowed.";
+    private static final String ERROR_NUMBERS_RANGE_REVERSED =
+            "A range of task numbers must go from low to high, e.g. 3-7.";
+    private static final String ERROR_NUMBERS_TOO_LARGE = "Task numbers cannot exceed " + MAX_TASK_NUMBER + ".";
+    private static final String ERROR_ID_INVALID = "Task IDs must be positive integers after a '#' (e.g., #12).";
+    private static final String ERROR_ID_DUPLICATE = "Duplicate task IDs are not allowed.";
     private static final String ERROR_FIND_EMPTY = "Find what? Please provide a keyword.";
     private static final String ERROR_INVALID_DATE_TIME =
             "Invalid date/time. Use yyyy-MM-dd HHmm (e.g., 2026-01-30 1400).";
+    private static final String ERROR_DATE_REQUIRED = "Which day? Specify one as yyyy-MM-dd (e.g., 2026-01-30).";
+    private static final String ERROR_INVALID_DATE = "Invalid date. Use yyyy-MM-dd (e.g., 2026-01-30).";
+    private static final String ERROR_UPCOMING_COUNT = "The number of upcoming deadlines must be a positive integer.";
+    private static final String ERROR_FREE_EMPTY = "When? Use 'free yyyy-MM-dd' or "
+            + "'free yyyy-MM-dd HHmm /to yyyy-MM-dd HHmm', optionally followed by a minimum length in minutes.";
+    private static final String ERROR_FREE_MULTIPLE_TO = "Free accepts at most one '/to' flag.";
+    private static final String ERROR_FREE_END_NOT_AFTER_START = "The end of the period must be later than its start.";
+    private static final String ERROR_FREE_MIN_DURATION = "The minimum free time must be a positive number of minutes.";
 
     /**
      * Parses a raw user command string into a structured {@link ParsedInput}.
@@ -103,6 +131,26 @@ public class Parser {
             return Command.BYE;
         case "find":
             return Command.FIND;
+        case "due":
+            return Command.DUE;
+        case "overdue":
+            return Command.OVERDUE;
+        case "upcoming":
+            return Command.UPCOMING;
+        case "on":
+            return Command.ON;
+        case "overlaps":
+            return Command.OVERLAPS;
+        case "free":
+            return Command.FREE;
+        case "memory":
+            return Command.MEMORY;
+        case "count":
+            return Command.COUNT;
+        case "undo":
+            return Command.UNDO;
+        case "redo":
+            return Command.REDO;
         default:
             throw new BarryException(ERROR_INVALID_COMMAND);
         }
@@ -111,12 +159,11 @@ public class Parser {
     private static ParsedInput parseByCommand(Command type, String input) throws BarryException {
         switch (type) {
         case LIST:
-            ensureNoExtraArguments(input, "list");
-            return ParsedInput.simple(type);
+            return parseList(input);
         case HELP:
             ensureNoExtraArguments(input, "help");
             return ParsedInput.simple(type);
-        case BYE: // Intentional fallthrough as LIST, HELP, and BYE require no arguments
+        case BYE: // Intentional fallthrough as HELP and BYE require no arguments
             ensureNoExtraArguments(input, "bye");
             return ParsedInput.simple(type);
         case TODO:
@@ -127,6 +174,32 @@ public class Parser {
             return parseEvent(input);
         case FIND:
             return parseFind(input);
+        case OVERDUE:
+            ensureNoExtraArguments(input, "overdue");
+            return ParsedInput.simple(type);
+        case OVERLAPS:
+            ensureNoExtraArguments(input, "overlaps");
+            return ParsedInput.simple(type);
+        case MEMORY:
+            ensureNoExtraArguments(input, "memory");
+            return ParsedInput.simple(type);
+        case COUNT:
+            ensureNoExtraArguments(input, "count");
+            return ParsedInput.simple(type);
+        case UNDO:
+            ensureNoExtraArguments(input, "undo");
+            return ParsedInput.simple(type);
+        case REDO:
+            ensureNoExtraArguments(input, "redo");
+            return ParsedInput.simple(type);
+        case DUE:
+            return parseDay(type, input, "due");
+        case ON:
+            return parseDay(type, input, "on");
+        case UPCOMING:
+            return parseUpcoming(input);
+        case FREE:
+            return parseFree(input);
         case MARK:
         case UNMARK:
         case DELETE: // Intentional fallthrough as MARK, UNMARK, and DELETE require the same processing.
@@ -137,6 +210,20 @@ public class Parser {
         }
     }
 
+    private static ParsedInput parseList(String input) throws BarryException {
+        String filter = extractRemainderAfterCommand(input, "list").toLowerCase();
+        switch (filter) {
+        case "":
+            return ParsedInput.list(ListFilter.ALL);
+        case "done":
+            return ParsedInput.list(ListFilter.DONE);
+        case "pending":
+            return ParsedInput.list(ListFilter.PENDING);
+        default:
+            throw new BarryException(ERROR_LIST_FILTER);
+        }
+    }
+
     private static ParsedInput parseTodo(String input) throws BarryException {
         String name = extractRemainderAfterCommand(input, "todo");
         assert name != null : "todo name must not be null";
@@ -166,6 +253,10 @@ public class Parser {
     private static ParsedInput parseEvent(String input) throws BarryException {
         String remainder = extractRemainderAfterCommand(input, "event");
         assert remainder != null : "event remaining details must not be null";
+        boolean isConflictCheck = endsWithFlag(remainder, CONFLICT_CHECK_FLAG);
+        if (isConflictCheck) {
+            remainder = remainder.substring(0, remainder.length() - CONFLICT_CHECK_FLAG.length()).trim();
+        }
         ensureNotEmpty(remainder, ERROR_EVENT_EMPTY);
         ensureSingleFlagOccurrence(remainder, "/from", ERROR_EVENT_MULTIPLE_FROM);
         ensureSingleFlagOccurrence(remainder, "/to", ERROR_EVENT_MULTIPLE_TO);
@@ -190,28 +281,71 @@ public class Parser {
             throw new BarryException(ERROR_EVENT_END_NOT_AFTER_START);
         }
 
-        return ParsedInput.event(name, start, end);
+        return ParsedInput.event(name, start, end, isConflictCheck);
     }
 
+    private static boolean endsWithFlag(String input, String flag) {
+        int flagStart = input.length() - flag.length();
+        return input.endsWith(flag) && flagStart > 0 && Character.isWhitespace(input.charAt(flagStart - 1));
+    }
+
+    /**
+     * Parses the task numbers of a MARK, UNMARK or DELETE command into a bitset.
+     * Each argument is either a task number, an inclusive range such as {@code 10-20}, or a task ID such as
+     * {@code #12}.
+     */
     private static ParsedInput parseNumbers(Command type, String input) throws BarryException {
         String[] tokens = input.trim().split("\\s+");
         if (tokens.length <= 1) {
             throw new BarryException(ERROR_NUMBERS_REQUIRED);
         }
-        int[] nums = new int[tokens.length - 1];
-        Set<Integer> seen = new HashSet<>();
+        BitSet nums = new BitSet();
+        Set<Long> ids = new LinkedHashSet<>();
         for (int i = 1; i < tokens.length; i++) {
-            int parsedNumber = parseTaskNumber(tokens[i]);
-            if (parsedNumber <= 0) {
-                throw new BarryException(ERROR_NUMBERS_NON_POSITIVE);
+            if (tokens[i].startsWith(ID_PREFIX)) {
+                if (!ids.add(parseTaskId(tokens[i].substring(ID_PREFIX.length())))) {
+                    throw new BarryException(ERROR_ID_DUPLICATE);
+                }
+                continue;
+            }
+            // A leading '-' is the sign of a negative number, not a range.
+            int separator = tokens[i].indexOf(RANGE_SEPARATOR, 1);
+            int first = parsePositiveTaskNumber(separator < 0 ? tokens[i] : tokens[i].substring(0, separator));
+            int last = separator < 0 ? first : parsePositiveTaskNumber(tokens[i].substring(separator + 1));
+            if (last < first) {
+                throw new BarryException(ERROR_NUMBERS_RANGE_REVERSED);
             }
-            if (!seen.add(parsedNumber)) {
+            int firstTaken = nums.nextSetBit(first);
+            if (firstTaken >= 0 && firstTaken <= last) {
                 throw new BarryException(ERROR_NUMBERS_DUPLICATE);
             }
-            nums[i - 1] = parsedNumber;
+            nums.set(first, last + 1);
+        }
+
+        return ParsedInput.numbers(type, nums, ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private static int parsePositiveTaskNumber(String s) throws BarryException {
+        int parsedNumber = parseTaskNumber(s);
+        if (parsedNumber <= 0) {
+            throw new BarryException(ERROR_NUMBERS_NON_POSITIVE);
+        }
+        if (parsedNumber > MAX_TASK_NUMBER) {
+            throw new BarryException(ERROR_NUMBERS_TOO_LARGE);
         }
+        return parsedNumber;
+    }
 
-        return ParsedInput.numbers(type, nums);
+    private static long parseTaskId(String s) throws BarryException {
+        try {
+            long id = Long.parseLong(s);
+            if (id <= 0) {
+                throw new BarryException(ERROR_ID_INVALID);
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new BarryException(ERROR_ID_INVALID);
+        }
     }
 
     private static ParsedInput parseFind(String input) throws BarryException {
@@ -221,6 +355,89 @@ public class Parser {
         return ParsedInput.find(keyword);
     }
 
+    private static ParsedInput parseDay(Command type, String input, String commandWord) throws BarryException {
+        String dayString = extractRemainderAfterCommand(input, commandWord);
+        ensureNotEmpty(dayString, ERROR_DATE_REQUIRED);
+        LocalDateTime startOfDay = parseDate(dayString).atStartOfDay();
+        return ParsedInput.period(type, startOfDay, startOfDay.plusDays(1));
+    }
+
+    private static ParsedInput parseUpcoming(String input) throws BarryException {
+        String countString = extractRemainderAfterCommand(input, "upcoming");
+        if (countString.isEmpty()) {
+            return ParsedInput.upcoming(DEFAULT_UPCOMING_COUNT);
+        }
+        int count;
+        try {
+            count = Integer.parseInt(countString);
+        } catch (NumberFormatException e) {
+            throw new BarryException(ERROR_UPCOMING_COUNT);
+        }
+        if (count <= 0) {
+            throw new BarryException(ERROR_UPCOMING_COUNT);
+        }
+        return ParsedInput.upcoming(count);
+    }
+
+    /**
+     * Parses {@code free <date> [minutes]} or {@code free <start> /to <end> [minutes]}, where the dates use the
+     * same formats as the other commands.
+     */
+    private static ParsedInput parseFree(String input) throws BarryException {
+        String remainder = extractRemainderAfterCommand(input, "free");
+        ensureNotEmpty(remainder, ERROR_FREE_EMPTY);
+        ensureSingleFlagOccurrence(remainder, "/to", ERROR_FREE_MULTIPLE_TO);
+
+        LocalDateTime start;
+        LocalDateTime end;
+        String[] endTokens;
+        if (remainder.contains("/to")) {
+            String[] parts = splitOnFlagOrThrow(remainder, "/to", ERROR_FREE_EMPTY);
+            ensureNotEmpty(parts[0].trim(), ERROR_FREE_EMPTY);
+            start = parseDateTime(parts[0]);
+            endTokens = parts[1].trim().split("\\s+");
+            if (endTokens.length < 2) {
+                throw new BarryException(ERROR_INVALID_DATE_TIME);
+            }
+            end = parseDateTime(endTokens[0] + " " + endTokens[1]);
+            endTokens = Arrays.copyOfRange(endTokens, 2, endTokens.length);
+        } else {
+            String[] tokens = remainder.split("\\s+");
+            start = parseDate(tokens[0]).atStartOfDay();
+            end = start.plusDays(1);
+            endTokens = Arrays.copyOfRange(tokens, 1, tokens.length);
+        }
+        if (!end.isAfter(start)) {
+            throw new BarryException(ERROR_FREE_END_NOT_AFTER_START);
+        }
+        if (endTokens.length > 1) {
+            throw new BarryException(ERROR_EXTRA_ARGUMENTS);
+        }
+        Duration minDuration = endTokens.length == 0 ? Duration.ofMinutes(1) : parseMinDuration(endTokens[0]);
+        return ParsedInput.free(start, end, minDuration);
+    }
+
+    private static Duration parseMinDuration(String s) throws BarryException {
+        try {
+            int minutes = Integer.parseInt(s);
+            if (minutes <= 0) {
+                throw new BarryException(ERROR_FREE_MIN_DURATION);
+            }
+            return Duration.ofMinutes(minutes);
+        } catch (NumberFormatException e) {
+            throw new BarryException(ERROR_FREE_MIN_DURATION);
+        }
+    }
+
+    private static LocalDate parseDate(String s) throws BarryException {
+        assert s != null : "date string must not be null";
+        try {
+            return LocalDate.parse(s.trim(), IN_DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new BarryException(ERROR_INVALID_DATE);
+        }
+    }
+
     private static LocalDateTime parseDateTime(String s) throws BarryException {
         assert s != null : "date time string must not be null";
         try {
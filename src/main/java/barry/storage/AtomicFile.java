@@ -0,0 +1,95 @@
+package barry.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import barry.exception.BarryException;
+
+/**
+ * Provides crash-safe file writes for {@link barry.storage.Storage}.
+ *
+ * <p>{@link #replace(Path, Content)} writes the new contents to a temporary file next to the target,
+ * forces it to disk, and then atomically moves it over the target, so a crash leaves either the old or
+ * the new file but never a half-written one. {@link #append(Path, byte[])} forces appended bytes to disk
+ * before returning.</p>
+ */
+class AtomicFile {
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Represents the contents of a file, written straight to its channel.
+     */
+    interface Content {
+        void writeTo(FileChannel channel) throws IOException, BarryException;
+    }
+
+    private AtomicFile() {
+        // Utility class; not meant to be instantiated.
+    }
+
+    /**
+     * Replaces the target file with the given contents, atomically and durably.
+     * Only one replacement of a given target may run at a time, as they share the temporary file.
+     *
+     * @param target File to replace or create.
+     * @param content Contents of the new file.
+     * @throws IOException If the file cannot be written or moved into place.
+     * @throws BarryException If the contents cannot be produced.
+     */
+    static void replace(Path target, Content content) throws IOException, BarryException {
+        Path tempPath = Paths.get(target + TEMP_FILE_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            content.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target);
+    }
+
+    /**
+     * Appends bytes to the target file, creating it if needed, and forces them to disk.
+     *
+     * @param target File to append to.
+     * @param bytes Bytes to append.
+     * @throws IOException If the file cannot be written.
+     */
+    static void append(Path target, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.wrap(bytes));
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Writes every remaining byte of the buffer to the channel.
+     *
+     * @param channel Channel to write to.
+     * @param buffer Bytes to write.
+     * @throws IOException If writing fails.
+     */
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void forceDirectory(Path target) {
+        Path directory = target.toAbsolutePath().getParent();
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms (e.g. Windows) cannot open directories; the rename is still atomic there.
+        }
+    }
+}
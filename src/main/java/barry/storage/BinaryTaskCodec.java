@@ -0,0 +1,283 @@
+package barry.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import barry.exception.BarryException;
+import barry.task.Deadline;
+import barry.task.Event;
+import barry.task.Task;
+import barry.task.ToDo;
+
+/**
+ * Reads and writes the compact binary snapshot format through {@link java.nio.ByteBuffer}s.
+ *
+ * <p>A binary snapshot starts with the magic bytes {@code BRY3}, the snapshot generation (8 bytes), the next free
+ * task ID (8 bytes) and the task count (4 bytes). Each task is then stored as:</p>
+ * <ul>
+ *   <li>the difference between its ID and the previous task's ID (0 before the first) as a zigzag varint, which
+ *   takes a single byte while IDs ascend in steps of less than 64;</li>
+ *   <li>one type byte, whose highest bit is the done flag;</li>
+ *   <li>the varint length of the UTF-8 description, followed by its bytes;</li>
+ *   <li>for a deadline, the due time as zigzag varint epoch minutes;</li>
+ *   <li>for an event, the start as zigzag varint epoch minutes and the duration as varint minutes.</li>
+ * </ul>
+ *
+ * <p>Snapshots written before the next free ID was saved start with {@code BRY2} and lack it, and snapshots
+ * written before tasks had IDs start with {@code BRY1} and also lack the ID field; both are still read, the
+ * latter as tasks without an ID.</p>
+ */
+class BinaryTaskCodec {
+    private static final byte[] MAGIC = {'B', 'R', 'Y', '3'};
+    private static final byte[] MAGIC_WITHOUT_NEXT_ID = {'B', 'R', 'Y', '2'};
+    private static final byte[] MAGIC_WITHOUT_IDS = {'B', 'R', 'Y', '1'};
+    // Headers without the next free ID are the shortest.
+    private static final int MIN_HEADER_SIZE = MAGIC.length + Long.BYTES + Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int SCRATCH_SIZE = 256;
+    private static final byte TYPE_TODO = 0;
+    private static final byte TYPE_DEADLINE = 1;
+    private static final byte TYPE_EVENT = 2;
+    private static final int DONE_BIT = 0x80;
+    private static final int TYPE_MASK = 0x7F;
+    private static final String ERROR_CORRUPTED_FILE = "Corrupted binary data file: ";
+    private static final String ERROR_TRUNCATED = "unexpected end of file.";
+    private static final String ERROR_UNKNOWN_TYPE = "unknown task type ";
+    private static final String ERROR_INVALID_ID = "invalid task ID.";
+    private static final String ERROR_UNKNOWN_TASK_TYPE_SAVE = "Unknown task type, unable to save.";
+
+    /**
+     * Represents the contents of a binary snapshot.
+     */
+    static class Snapshot {
+        final long generation;
+        // 0 if the snapshot predates saving the next free ID.
+        final long nextId;
+        final ArrayList<Task> tasks;
+
+        Snapshot(long generation, long nextId, ArrayList<Task> tasks) {
+            this.generation = generation;
+            this.nextId = nextId;
+            this.tasks = tasks;
+        }
+    }
+
+    private BinaryTaskCodec() {
+        // Utility class; not meant to be instantiated.
+    }
+
+    /**
+     * Returns whether the given file starts with the binary snapshot header.
+     *
+     * @param file File to inspect.
+     * @return true if the file exists and is a binary snapshot.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    static boolean isBinary(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            return Arrays.equals(magic, MAGIC) || Arrays.equals(magic, MAGIC_WITHOUT_NEXT_ID)
+                    || Arrays.equals(magic, MAGIC_WITHOUT_IDS);
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of the given tasks to the channel.
+     *
+     * @param channel Channel to write to.
+     * @param tasks Tasks to write, in order.
+     * @param generation Generation of the snapshot.
+     * @param nextId Next free task ID, greater than the ID of every task ever saved.
+     * @throws IOException If writing fails.
+     * @throws BarryException If a task has an unknown type.
+     */
+    static void write(FileChannel channel, List<Task> tasks, long generation, long nextId)
+            throws IOException, BarryException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.put(MAGIC).putLong(generation).putLong(nextId).putInt(tasks.size());
+        long previousId = 0;
+        for (Task task : tasks) {
+            byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+            int maxRecordSize = 1 + MAX_VARINT_BYTES * 4 + name.length;
+            if (buffer.remaining() < maxRecordSize) {
+                flush(channel, buffer);
+            }
+            if (buffer.remaining() < maxRecordSize) {
+                buffer = ByteBuffer.allocate(maxRecordSize);
+            }
+            putVarLong(buffer, zigzag(task.getId() - previousId));
+            putTask(buffer, task, name);
+            previousId = task.getId();
+        }
+        flush(channel, buffer);
+    }
+
+    /**
+     * Reads a binary snapshot from the given file.
+     *
+     * @param file Binary snapshot to read.
+     * @return The snapshot generation, next free ID and tasks.
+     * @throws IOException If the file cannot be read.
+     * @throws BarryException If the file is truncated or contains an unknown task type.
+     */
+    static Snapshot read(Path file) throws IOException, BarryException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends.
+            }
+            buffer.flip();
+        }
+        return decode(buffer);
+    }
+
+    /**
+     * Decodes a binary snapshot held in the given buffer.
+     *
+     * @param buffer Buffer positioned at the start of the snapshot.
+     * @return The snapshot generation, next free ID and tasks.
+     * @throws BarryException If the data is truncated or contains an unknown task type.
+     */
+    static Snapshot decode(ByteBuffer buffer) throws BarryException {
+        try {
+            if (buffer.remaining() < MIN_HEADER_SIZE) {
+                throw new BarryException(ERROR_CORRUPTED_FILE + ERROR_TRUNCATED);
+            }
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            boolean hasNextId = Arrays.equals(magic, MAGIC);
+            boolean hasIds = hasNextId || Arrays.equals(magic, MAGIC_WITHOUT_NEXT_ID);
+            long generation = buffer.getLong();
+            long nextId = hasNextId ? buffer.getLong() : 0;
+            int count = buffer.getInt();
+            ArrayList<Task> tasks = new ArrayList<>(Math.max(0, count));
+            byte[] scratch = new byte[SCRATCH_SIZE];
+            long id = 0;
+            for (int i = 0; i < count; i++) {
+                if (!hasIds) {
+                    tasks.add(getTask(buffer, scratch));
+                    continue;
+                }
+                id += unzigzag(getVarLong(buffer));
+                if (id <= 0) {
+                    throw new BarryException(ERROR_CORRUPTED_FILE + ERROR_INVALID_ID);
+                }
+                Task task = getTask(buffer, scratch);
+                task.assignId(id);
+                tasks.add(task);
+            }
+            return new Snapshot(generation, nextId, tasks);
+        } catch (BufferUnderflowException e) {
+            throw new BarryException(ERROR_CORRUPTED_FILE + ERROR_TRUNCATED);
+        }
+    }
+
+    private static void putTask(ByteBuffer buffer, Task task, byte[] name) throws BarryException {
+        int doneBit = task.isDone() ? DONE_BIT : 0;
+        if (task instanceof ToDo) {
+            putHeader(buffer, TYPE_TODO | doneBit, name);
+        } else if (task instanceof Deadline deadline) {
+            putHeader(buffer, TYPE_DEADLINE | doneBit, name);
+            putVarLong(buffer, zigzag(deadline.getByEpochMinutes()));
+        } else if (task instanceof Event event) {
+            long start = event.getFromEpochMinutes();
+            putHeader(buffer, TYPE_EVENT | doneBit, name);
+            putVarLong(buffer, zigzag(start));
+            putVarLong(buffer, event.getToEpochMinutes() - start);
+        } else {
+            throw new BarryException(ERROR_UNKNOWN_TASK_TYPE_SAVE);
+        }
+    }
+
+    private static void putHeader(ByteBuffer buffer, int typeByte, byte[] name) {
+        buffer.put((byte) typeByte);
+        putVarLong(buffer, name.length);
+        buffer.put(name);
+    }
+
+    private static Task getTask(ByteBuffer buffer, byte[] scratch) throws BarryException {
+        int typeByte = buffer.get() & 0xFF;
+        String name = getString(buffer, scratch);
+        Task task;
+        switch (typeByte & TYPE_MASK) {
+        case TYPE_TODO:
+            task = new ToDo(name);
+            break;
+        case TYPE_DEADLINE:
+            task = Deadline.ofEpochMinutes(name, unzigzag(getVarLong(buffer)));
+            break;
+        case TYPE_EVENT:
+            long start = unzigzag(getVarLong(buffer));
+            long duration = getVarLong(buffer);
+            task = Event.ofEpochMinutes(name, start, start + duration);
+            break;
+        default:
+            throw new BarryException(ERROR_CORRUPTED_FILE + ERROR_UNKNOWN_TYPE + (typeByte & TYPE_MASK));
+        }
+        if ((typeByte & DONE_BIT) != 0) {
+            task.restoreDoneState(true);
+        }
+        return task;
+    }
+
+    private static String getString(ByteBuffer buffer, byte[] scratch) throws BarryException {
+        long length = getVarLong(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BarryException(ERROR_CORRUPTED_FILE + ERROR_TRUNCATED);
+        }
+        // Short descriptions are decoded from a reused buffer to avoid one extra array per task.
+        byte[] bytes = length <= scratch.length ? scratch : new byte[(int) length];
+        buffer.get(bytes, 0, (int) length);
+        return new String(bytes, 0, (int) length, StandardCharsets.UTF_8);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        AtomicFile.writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) throws BarryException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new BarryException(ERROR_CORRUPTED_FILE + "malformed varint.");
+    }
+}
@@ -0,0 +1,81 @@
+package barry.storage;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import barry.exception.BarryException;
+
+/**
+ * Runs snapshot compactions for {@link barry.storage.Storage} on a single background thread,
+ * so that writing a full snapshot never blocks the command that triggered it.
+ *
+ * <p>At most one compaction is in flight at a time. The worker is a daemon thread, so an unfinished
+ * compaction never keeps the application alive; it only leaves a temporary file that is never swapped in.</p>
+ */
+class Compactor {
+    private static final String THREAD_NAME = "barry-compactor";
+    private static final String ERROR_COMPACTION_FAILED = "Failed to compact saved tasks: ";
+    private ExecutorService executor;
+    private Future<?> inFlight;
+
+    /**
+     * Represents a unit of compaction work that may fail with an I/O or data error.
+     */
+    interface Job {
+        void run() throws Exception;
+    }
+
+    /**
+     * Returns whether a compaction is still running.
+     *
+     * @return true if the last submitted compaction has not finished yet.
+     */
+    synchronized boolean isRunning() {
+        return inFlight != null && !inFlight.isDone();
+    }
+
+    /**
+     * Starts the given compaction on the background thread.
+     *
+     * @param job The compaction to run.
+     */
+    synchronized void submit(Job job) {
+        assert !isRunning() : "only one compaction may run at a time";
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        inFlight = executor.submit(() -> {
+            job.run();
+            return null;
+        });
+    }
+
+    /**
+     * Waits for the running compaction, if any, to finish.
+     *
+     * @throws BarryException If the compaction failed.
+     */
+    void await() throws BarryException {
+        Future<?> current;
+        synchronized (this) {
+            current = inFlight;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BarryException(ERROR_COMPACTION_FAILED + e.getMessage());
+        } catch (ExecutionException e) {
+            throw new BarryException(ERROR_COMPACTION_FAILED + e.getCause().getMessage());
+        }
+    }
+}
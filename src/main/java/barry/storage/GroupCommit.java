@@ -0,0 +1,86 @@
+package barry.storage;
+
+import barry.exception.BarryException;
+
+/**
+ * Group-commits concurrent persist requests so that one disk write and fsync covers all of them.
+ *
+ * <p>The first caller becomes the leader and runs the persist action. Callers that arrive while it runs
+ * wait, and the next leader's single run covers every one of them, because the action always persists
+ * the latest state of the task list rather than one caller's change.</p>
+ */
+class GroupCommit {
+    private static final String ERROR_INTERRUPTED = "Interrupted while waiting for tasks to be saved.";
+    private long requestedCount = 0;
+    private long committedCount = 0;
+    private long failedFrom = Long.MAX_VALUE;
+    private long failedTo = -1;
+    private BarryException failure;
+    private boolean isCommitting = false;
+
+    /**
+     * Represents the action that persists everything requested so far.
+     */
+    interface Action {
+        void run() throws BarryException;
+    }
+
+    /**
+     * Returns once a run of the action that started after this call has completed.
+     *
+     * @param action Action that persists the latest state.
+     * @throws BarryException If the run covering this request failed.
+     */
+    void commit(Action action) throws BarryException {
+        long ticket;
+        long batchEnd;
+        synchronized (this) {
+            ticket = ++requestedCount;
+            while (isCommitting && committedCount < ticket) {
+                waitForCommit();
+            }
+            if (committedCount >= ticket) {
+                throwIfFailed(ticket);
+                return;
+            }
+            isCommitting = true;
+            batchEnd = requestedCount;
+        }
+
+        BarryException runFailure = null;
+        try {
+            action.run();
+        } catch (BarryException e) {
+            runFailure = e;
+        } finally {
+            synchronized (this) {
+                if (runFailure != null) {
+                    failedFrom = committedCount + 1;
+                    failedTo = batchEnd;
+                    failure = runFailure;
+                }
+                committedCount = batchEnd;
+                isCommitting = false;
+                notifyAll();
+            }
+        }
+        if (runFailure != null) {
+            throw runFailure;
+        }
+    }
+
+    private void waitForCommit() throws BarryException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BarryException(ERROR_INTERRUPTED);
+        }
+    }
+
+    private void throwIfFailed(long ticket) throws BarryException {
+        if (ticket >= failedFrom && ticket <= failedTo) {
+            throw failure;
+        }
+    }
+}
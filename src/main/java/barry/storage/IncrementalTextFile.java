@@ -0,0 +1,318 @@
+package barry.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import barry.exception.BarryException;
+import barry.task.Task;
+import barry.task.TaskChange;
+
+/**
+ * Tracks where each task line of a text data file starts, so a save can rewrite only the lines that changed.
+ *
+ * <p>A line whose encoding keeps its byte length, e.g. a task that was marked or unmarked, is overwritten in
+ * place. From the first line that moved (an add or a removal) onwards, the file is truncated and the rest of the
+ * list is written again; as tasks are added at the end unless an undo puts one back, an append costs bytes
+ * proportional to the new lines, not to the size of the list. The next free task ID in the header is overwritten
+ * in place too, which {@link #canStoreNextId(long)} allows as long as it keeps its number of digits.</p>
+ *
+ * <p>Before touching the data file, the original bytes of every region about to change, and its original length,
+ * are written to a rollback file next to it. If a save is cut short, {@link #recover(Path)} puts those bytes
+ * back on the next load, so the data file is always either fully before or fully after a save.</p>
+ */
+class IncrementalTextFile {
+    private static final String ROLLBACK_SUFFIX = ".rollback";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int INITIAL_CAPACITY = 64;
+    private final Path path;
+    private final Path rollbackPath;
+    private final long nextIdOffset;
+    private long[] lineStarts = new long[INITIAL_CAPACITY];
+    private int lineCount = 0;
+    private long fileEnd;
+    private long nextId;
+
+    /**
+     * Represents the encoding of a task as a line of the data file, without its terminator.
+     */
+    interface LineEncoder {
+        String encode(Task task) throws BarryException;
+    }
+
+    /**
+     * Constructs the layout of a text data file that is about to be written from scratch.
+     *
+     * @param path Path of the data file.
+     * @param headerLength Length in bytes of the lines written before the first task.
+     * @param nextIdOffset Offset in bytes of the next free task ID written in the header.
+     * @param nextId Next free task ID written in the header.
+     */
+    IncrementalTextFile(Path path, long headerLength, long nextIdOffset, long nextId) {
+        assert headerLength >= 0 : "headerLength must not be negative";
+        assert nextIdOffset < headerLength : "the next free ID must be in the header";
+        this.path = path;
+        this.rollbackPath = rollbackPathOf(path);
+        this.fileEnd = headerLength;
+        this.nextIdOffset = nextIdOffset;
+        this.nextId = nextId;
+    }
+
+    /**
+     * Records that the given task line, followed by the line separator, was written at the end of the file.
+     *
+     * @param line Task line without its terminator.
+     */
+    void addLine(String line) {
+        appendLineStart(fileEnd);
+        fileEnd += utf8Length(line) + LINE_SEPARATOR.length();
+    }
+
+    /**
+     * Returns whether the given next free task ID can be written over the one in the header without moving the
+     * task lines, i.e. whether it has as many digits.
+     *
+     * @param nextId Next free task ID to write.
+     * @return true if {@link #apply(List, List, long, LineEncoder)} can write the ID in place.
+     */
+    boolean canStoreNextId(long nextId) {
+        return Long.toString(nextId).length() == Long.toString(this.nextId).length();
+    }
+
+    /**
+     * Restores the data file from a rollback file left behind by an interrupted save, if there is one. This
+     * covers in-place saves of record files as well as text files.
+     *
+     * @param dataFile Path of the data file.
+     * @throws IOException If the rollback file cannot be read or applied.
+     */
+    static void recover(Path dataFile) throws IOException {
+        Path rollbackPath = rollbackPathOf(dataFile);
+        if (!Files.exists(rollbackPath)) {
+            return;
+        }
+        ByteBuffer rollback = ByteBuffer.wrap(Files.readAllBytes(rollbackPath));
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            long originalLength = rollback.getLong();
+            while (rollback.hasRemaining()) {
+                long offset = rollback.getLong();
+                byte[] original = new byte[rollback.getInt()];
+                rollback.get(original);
+                writeFully(channel, ByteBuffer.wrap(original), offset);
+            }
+            channel.truncate(originalLength);
+            channel.force(true);
+        }
+        Files.delete(rollbackPath);
+    }
+
+    /**
+     * Brings the data file in line with the given view of the task list by rewriting only the changed lines.
+     *
+     * @param tasks View of the task list after the changes.
+     * @param changes Changes made since the file was last written, in order.
+     * @param nextId Next free task ID after the changes; {@link #canStoreNextId(long)} must hold for it.
+     * @param encoder Encoding of a task as a line.
+     * @throws IOException If the file cannot be written; it is then rolled back on the next load.
+     * @throws BarryException If a task cannot be encoded.
+     */
+    void apply(List<Task> tasks, List<TaskChange> changes, long nextId, LineEncoder encoder)
+            throws IOException, BarryException {
+        assert canStoreNextId(nextId) : "the next free ID must fit in place";
+        boolean isNextIdChanged = nextId != this.nextId;
+        if (changes.isEmpty() && !isNextIdChanged) {
+            return;
+        }
+        int firstMovedIndex = lineCount;
+        for (TaskChange change : changes) {
+            boolean isMoved = change.kind == TaskChange.Kind.ADD || change.kind == TaskChange.Kind.INSERT
+                    || change.kind == TaskChange.Kind.REMOVE;
+            if (isMoved) {
+                firstMovedIndex = Math.min(firstMovedIndex, change.index);
+            }
+        }
+
+        // Lines before the first moved one keep their index, so the changes' indexes still point at them.
+        List<Integer> inPlaceIndexes = new ArrayList<>();
+        List<byte[]> inPlaceLines = new ArrayList<>();
+        for (TaskChange change : changes) {
+            boolean isFlip = change.kind == TaskChange.Kind.MARK || change.kind == TaskChange.Kind.UNMARK;
+            if (!isFlip || change.index >= firstMovedIndex || inPlaceIndexes.contains(change.index)) {
+                continue;
+            }
+            byte[] line = encodeLine(encoder, tasks.get(change.index));
+            if (line.length != lineEnd(change.index) - lineStarts[change.index]) {
+                firstMovedIndex = change.index;
+                continue;
+            }
+            inPlaceIndexes.add(change.index);
+            inPlaceLines.add(line);
+        }
+
+        long tailStart = firstMovedIndex < lineCount ? lineStarts[firstMovedIndex] : fileEnd;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeRollback(channel, inPlaceIndexes, isNextIdChanged, tailStart);
+            if (isNextIdChanged) {
+                byte[] digits = Long.toString(nextId).getBytes(StandardCharsets.US_ASCII);
+                writeFully(channel, ByteBuffer.wrap(digits), nextIdOffset);
+                this.nextId = nextId;
+            }
+            for (int i = 0; i < inPlaceIndexes.size(); i++) {
+                int index = inPlaceIndexes.get(i);
+                if (index < firstMovedIndex) {
+                    writeFully(channel, ByteBuffer.wrap(inPlaceLines.get(i)), lineStarts[index]);
+                }
+            }
+            rewriteTail(channel, tasks, firstMovedIndex, tailStart, encoder);
+            channel.force(true);
+        }
+        Files.delete(rollbackPath);
+    }
+
+    private void rewriteTail(FileChannel channel, List<Task> tasks, int fromIndex, long tailStart,
+            LineEncoder encoder) throws IOException, BarryException {
+        channel.truncate(tailStart);
+        lineCount = Math.min(lineCount, fromIndex);
+        fileEnd = tailStart;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for (int index = fromIndex; index < tasks.size(); index++) {
+            byte[] line = encodeLine(encoder, tasks.get(index));
+            if (buffer.remaining() < line.length) {
+                fileEnd = flush(channel, buffer, fileEnd);
+            }
+            if (buffer.remaining() < line.length) {
+                buffer = ByteBuffer.allocate(line.length);
+            }
+            appendLineStart(fileEnd + buffer.position());
+            buffer.put(line);
+        }
+        fileEnd = flush(channel, buffer, fileEnd);
+    }
+
+    private void writeRollback(FileChannel channel, List<Integer> inPlaceIndexes, boolean isNextIdChanged,
+            long tailStart) throws IOException, BarryException {
+        List<Long> offsets = new ArrayList<>();
+        List<ByteBuffer> originals = new ArrayList<>();
+        if (isNextIdChanged) {
+            offsets.add(nextIdOffset);
+            originals.add(ByteBuffer.wrap(Long.toString(nextId).getBytes(StandardCharsets.US_ASCII)));
+        }
+        for (int index : inPlaceIndexes) {
+            ByteBuffer original = ByteBuffer.allocate((int) (lineEnd(index) - lineStarts[index]));
+            readFully(channel, original, lineStarts[index]);
+            offsets.add(lineStarts[index]);
+            originals.add(original.flip());
+        }
+        ByteBuffer tail = ByteBuffer.allocate((int) (fileEnd - tailStart));
+        readFully(channel, tail, tailStart);
+        offsets.add(tailStart);
+        originals.add(tail.flip());
+        writeRollback(path, fileEnd, offsets, originals);
+    }
+
+    /**
+     * Durably writes the rollback file of a data file that is about to be changed in place, for
+     * {@link #recover(Path)} to apply if the change is cut short. Record files use the same rollback file.
+     *
+     * @param dataFile Path of the data file.
+     * @param originalLength Length of the data file before the change.
+     * @param offsets Offsets of the regions about to change.
+     * @param originals Original bytes of each region, from position to limit.
+     * @throws IOException If the rollback file cannot be written.
+     * @throws BarryException As declared by {@link AtomicFile#replace}; writing the regions cannot fail this way.
+     */
+    static void writeRollback(Path dataFile, long originalLength, List<Long> offsets, List<ByteBuffer> originals)
+            throws IOException, BarryException {
+        assert offsets.size() == originals.size() : "every region needs an offset";
+        AtomicFile.replace(rollbackPathOf(dataFile), rollbackChannel -> {
+            ByteBuffer entryHeader = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+            AtomicFile.writeFully(rollbackChannel, ByteBuffer.allocate(Long.BYTES).putLong(0, originalLength));
+            for (int i = 0; i < originals.size(); i++) {
+                entryHeader.clear();
+                entryHeader.putLong(offsets.get(i)).putInt(originals.get(i).remaining()).flip();
+                AtomicFile.writeFully(rollbackChannel, entryHeader);
+                AtomicFile.writeFully(rollbackChannel, originals.get(i));
+            }
+        });
+    }
+
+    /**
+     * Deletes the rollback file of a data file once the change it guarded is durable.
+     *
+     * @param dataFile Path of the data file.
+     * @throws IOException If the rollback file cannot be deleted.
+     */
+    static void discardRollback(Path dataFile) throws IOException {
+        Files.delete(rollbackPathOf(dataFile));
+    }
+
+    private long lineEnd(int index) {
+        return index + 1 < lineCount ? lineStarts[index + 1] : fileEnd;
+    }
+
+    private void appendLineStart(long start) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = start;
+    }
+
+    private static byte[] encodeLine(LineEncoder encoder, Task task) throws BarryException {
+        return (encoder.encode(task) + LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        long next = position + buffer.remaining();
+        writeFully(channel, buffer, position);
+        buffer.clear();
+        return next;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long next = position;
+        while (buffer.hasRemaining()) {
+            next += channel.write(buffer, next);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // Keep reading until the buffer is full.
+        }
+    }
+
+    private static Path rollbackPathOf(Path dataFile) {
+        return Paths.get(dataFile + ROLLBACK_SUFFIX);
+    }
+
+    private static long utf8Length(String s) {
+        long length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                length += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                // Unpaired surrogates are encoded as a single '?'.
+                length += 1;
+            }
+        }
+        return length;
+    }
+}
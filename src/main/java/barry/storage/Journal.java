@@ -0,0 +1,248 @@
+package barry.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import barry.exception.BarryException;
+
+/**
+ * Represents the append-only log of task list mutations kept next to the data file.
+ *
+ * <p>The first line of a journal names the snapshot generation it applies to, so records that were
+ * already folded into a newer snapshot are never replayed twice. Every following line is one record.</p>
+ *
+ * <p>While a snapshot is being compacted, the active journal is rotated into a segment named after its
+ * generation (e.g. {@code barry.txt.journal.3}) and new records go to a fresh active journal. Loading
+ * replays every segment that is newer than the snapshot, in generation order.</p>
+ *
+ * <p>Appends are forced to disk before they return. A final record without its line terminator was cut
+ * short by a crash before its save completed, so it is dropped instead of being reported as corruption.</p>
+ */
+class Journal {
+    private static final String FILE_SUFFIX = ".journal";
+    private static final String SEGMENT_SEPARATOR = ".";
+    private static final String HEADER_PREFIX = "# base ";
+    private static final String ERROR_CORRUPTED_HEADER = "Corrupted journal header: ";
+    private static final String ERROR_NEWER_THAN_SNAPSHOT = "Journal is newer than the data file it belongs to.";
+    private final Path path;
+    private int recordCount = 0;
+    private long sizeBytes = 0;
+    private long activeGeneration = 0;
+
+    /**
+     * Constructs the journal belonging to the given data file.
+     *
+     * @param dataFilePath Path of the snapshot data file.
+     */
+    Journal(Path dataFilePath) {
+        assert dataFilePath != null : "dataFilePath must not be null";
+        this.path = Paths.get(dataFilePath + FILE_SUFFIX);
+    }
+
+    /**
+     * Returns whether the active journal or any rotated segment exists on disk.
+     *
+     * @return true if there is anything to replay or clean up.
+     */
+    synchronized boolean exists() throws IOException {
+        return Files.exists(path) || !findSegments().isEmpty();
+    }
+
+    /**
+     * Returns the number of records in the active journal.
+     *
+     * @return Record count since the journal was created or rotated.
+     */
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the size of the active journal in bytes.
+     *
+     * @return Journal size since it was created or rotated.
+     */
+    synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Appends records to the active journal, creating it with a header for the given generation if needed.
+     *
+     * @param records Encoded records to append, one per line.
+     * @param baseGeneration Generation of the snapshot the records apply to.
+     * @throws IOException If the journal cannot be written.
+     */
+    synchronized void append(List<String> records, long baseGeneration) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (!Files.exists(path)) {
+            sb.append(HEADER_PREFIX).append(baseGeneration).append(System.lineSeparator());
+        }
+        for (String record : records) {
+            sb.append(record).append(System.lineSeparator());
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        AtomicFile.append(path, bytes);
+        recordCount += records.size();
+        sizeBytes += bytes.length;
+    }
+
+    /**
+     * Reads the records that still apply on top of the snapshot with the given generation.
+     * Segments left over from an older snapshot are deleted, as their records are already in the snapshot.
+     *
+     * @param snapshotGeneration Generation of the snapshot that was just loaded.
+     * @return Records to replay, oldest first; empty if there is nothing to replay.
+     * @throws IOException If the journal cannot be read.
+     * @throws BarryException If a header is corrupted or refers to a snapshot that does not exist.
+     */
+    synchronized List<String> readRecords(long snapshotGeneration) throws IOException, BarryException {
+        TreeMap<Long, List<String>> segments = new TreeMap<>();
+        for (Path segment : findSegments()) {
+            List<String> lines = readCompleteLines(segment);
+            if (!lines.isEmpty()) {
+                segments.put(parseHeader(lines.get(0)), lines);
+            }
+        }
+        recordCount = 0;
+        sizeBytes = 0;
+        activeGeneration = segments.isEmpty() ? snapshotGeneration : segments.lastKey() + 1;
+        if (Files.exists(path)) {
+            List<String> lines = readCompleteLines(path);
+            long activeBase = lines.isEmpty() ? -1 : parseHeader(lines.get(0));
+            if (activeBase < snapshotGeneration) {
+                Files.delete(path);
+            } else {
+                segments.put(activeBase, lines);
+                activeGeneration = activeBase;
+                recordCount = lines.size() - 1;
+                sizeBytes = Files.size(path);
+            }
+        }
+        deleteBefore(snapshotGeneration);
+        activeGeneration = Math.max(activeGeneration, snapshotGeneration);
+
+        List<String> records = new ArrayList<>();
+        long expectedGeneration = snapshotGeneration;
+        for (Map.Entry<Long, List<String>> entry : segments.tailMap(snapshotGeneration, true).entrySet()) {
+            if (entry.getKey() != expectedGeneration) {
+                throw new BarryException(ERROR_NEWER_THAN_SNAPSHOT);
+            }
+            List<String> lines = entry.getValue();
+            records.addAll(lines.subList(1, lines.size()));
+            expectedGeneration++;
+        }
+        return records;
+    }
+
+    /**
+     * Returns the generation that new records should be appended under after {@link #readRecords(long)}.
+     * This is the base of the active journal, or the generation after the newest rotated segment.
+     *
+     * @return Generation for the active journal.
+     */
+    synchronized long getActiveGeneration() {
+        return activeGeneration;
+    }
+
+    /**
+     * Moves the active journal aside into a segment named after its generation,
+     * so that subsequent records start a fresh active journal.
+     *
+     * @param baseGeneration Generation the active journal applies to.
+     * @throws IOException If the journal cannot be moved.
+     */
+    synchronized void rotate(long baseGeneration) throws IOException {
+        if (Files.exists(path)) {
+            Files.move(path, segmentPath(baseGeneration));
+        }
+        recordCount = 0;
+        sizeBytes = 0;
+    }
+
+    /**
+     * Deletes every rotated segment whose records are older than the given generation.
+     *
+     * @param generation Generation of a snapshot that already contains those records.
+     * @throws IOException If a segment exists but cannot be deleted.
+     */
+    synchronized void deleteBefore(long generation) throws IOException {
+        for (Path segment : findSegments()) {
+            if (parseSegmentGeneration(segment) < generation) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * Deletes the active journal and all rotated segments,
+     * typically after their records have been folded into a new snapshot.
+     *
+     * @throws IOException If a segment exists but cannot be deleted.
+     */
+    synchronized void delete() throws IOException {
+        for (Path segment : findSegments()) {
+            Files.deleteIfExists(segment);
+        }
+        Files.deleteIfExists(path);
+        recordCount = 0;
+        sizeBytes = 0;
+    }
+
+    private List<String> readCompleteLines(Path file) throws IOException {
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n') + 1;
+        return content.substring(0, end).lines().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Path segmentPath(long baseGeneration) {
+        return Paths.get(path + SEGMENT_SEPARATOR + baseGeneration);
+    }
+
+    private List<Path> findSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return segments;
+        }
+        String prefix = path.getFileName() + SEGMENT_SEPARATOR;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path candidate : stream) {
+                if (parseSegmentGeneration(candidate) >= 0) {
+                    segments.add(candidate);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private long parseSegmentGeneration(Path segment) {
+        String name = segment.getFileName().toString();
+        String suffix = name.substring(name.lastIndexOf(SEGMENT_SEPARATOR) + 1);
+        try {
+            return Long.parseLong(suffix);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private long parseHeader(String header) throws BarryException {
+        if (!header.startsWith(HEADER_PREFIX)) {
+            throw new BarryException(ERROR_CORRUPTED_HEADER + header);
+        }
+        try {
+            return Long.parseLong(header.substring(HEADER_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new BarryException(ERROR_CORRUPTED_HEADER + header);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package barry.storage;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import barry.exception.BarryException;
+import barry.task.Task;
+
+/**
+ * Decodes large text snapshots in parallel on a fork-join pool.
+ *
+ * <p>The file is cut into chunks of about {@code CHUNK_SIZE} bytes, each ending just after a {@code '\n'} byte,
+ * so no line (and no UTF-8 sequence, which never contains that byte) straddles two chunks. Each chunk is read
+ * and decoded by its own fork-join task with its own {@link TaskLineDecoder}, and the results are stitched back
+ * together in file order. When several lines are corrupted, the error of the earliest one in the file is
+ * reported, exactly as a sequential load would report it.</p>
+ */
+class ParallelTaskLoader {
+    private static final int CHUNK_SIZE = 1 << 22;
+    private static final int BOUNDARY_SCAN_SIZE = 1 << 12;
+
+    private ParallelTaskLoader() {
+        // Utility class; not meant to be instantiated.
+    }
+
+    /**
+     * Represents one chunk of the file and, once decoded, its tasks or the reason it could not be decoded.
+     * Chunks only live for the duration of a load and are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class Chunk extends RecursiveAction {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private ArrayList<Task> tasks;
+        private IOException ioFailure;
+        private BarryException dataFailure;
+
+        Chunk(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                ArrayList<Task> decoded = new ArrayList<>();
+                BufferedReader reader = Storage.newStrictReader(new ByteArrayInputStream(readBytes()));
+                new TaskLineDecoder().decodeAll(reader, decoded);
+                tasks = decoded;
+            } catch (IOException e) {
+                ioFailure = e;
+            } catch (BarryException e) {
+                dataFailure = e;
+            }
+        }
+
+        private byte[] readBytes() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            // Positional reads leave the shared channel's position alone, so chunks can read concurrently.
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // Keep reading until the chunk is complete.
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Decodes every task in the given text snapshot, in file order.
+     *
+     * @param file Text snapshot to load.
+     * @param pool Pool to decode the chunks on.
+     * @return The decoded tasks.
+     * @throws IOException If the file cannot be read or is not valid UTF-8.
+     * @throws BarryException If a line is invalid/corrupted.
+     */
+    static ArrayList<Task> load(Path file, ForkJoinPool pool) throws IOException, BarryException {
+        return load(file, pool, CHUNK_SIZE);
+    }
+
+    /**
+     * Decodes every task in the given text snapshot, in file order, using chunks of about {@code chunkSize} bytes.
+     *
+     * @param file Text snapshot to load.
+     * @param pool Pool to decode the chunks on.
+     * @param chunkSize Target chunk size in bytes.
+     * @return The decoded tasks.
+     * @throws IOException If the file cannot be read or is not valid UTF-8.
+     * @throws BarryException If a line is invalid/corrupted.
+     */
+    static ArrayList<Task> load(Path file, ForkJoinPool pool, int chunkSize) throws IOException, BarryException {
+        assert file != null : "file must not be null";
+        assert pool != null : "pool must not be null";
+        assert chunkSize > 0 : "chunk size must be positive";
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Chunk> chunks = new ArrayList<>();
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = findChunkEnd(channel, start + chunkSize, size);
+                Chunk chunk = new Chunk(channel, start, end);
+                pool.execute(chunk);
+                chunks.add(chunk);
+                start = end;
+            }
+            return joinInOrder(chunks);
+        }
+    }
+
+    private static ArrayList<Task> joinInOrder(List<Chunk> chunks) throws IOException, BarryException {
+        int taskCount = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            chunk.join();
+            if (chunk.ioFailure != null || chunk.dataFailure != null) {
+                // Later chunks cannot change the outcome; stop those that have not started yet.
+                chunks.subList(i + 1, chunks.size()).forEach(later -> later.cancel(false));
+                throwFailure(chunk);
+            }
+            taskCount += chunk.tasks.size();
+        }
+        ArrayList<Task> tasks = new ArrayList<>(taskCount);
+        for (Chunk chunk : chunks) {
+            tasks.addAll(chunk.tasks);
+            chunk.tasks = null;
+        }
+        return tasks;
+    }
+
+    private static void throwFailure(Chunk chunk) throws IOException, BarryException {
+        if (chunk.ioFailure != null) {
+            throw chunk.ioFailure;
+        }
+        throw chunk.dataFailure;
+    }
+
+    /**
+     * Returns the offset just past the first {@code '\n'} at or after {@code target}, or the file size if
+     * there is none.
+     */
+    private static long findChunkEnd(FileChannel channel, long target, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long position = target;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,518 @@
+package barry.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import barry.exception.BarryException;
+import barry.task.Deadline;
+import barry.task.Event;
+import barry.task.Task;
+import barry.task.TaskChange;
+import barry.task.ToDo;
+
+/**
+ * Represents a data file of fixed-width task records that is updated in place.
+ *
+ * <p>The file starts with a 32-byte header: the magic bytes {@code BRR2}, the slot capacity, the number of
+ * used slots, the snapshot generation and the next free task ID, which is 0 in files written before it was
+ * saved. It is followed by {@code capacity} slots of 40 bytes, and then by a
+ * heap of UTF-8 descriptions that only ever grows at the end of the file. Each slot holds:</p>
+ * <ul>
+ *   <li>a flags byte: the task type, a done bit and a tombstone bit, followed by 3 unused bytes;</li>
+ *   <li>the description length (4 bytes) and its offset in the file (8 bytes);</li>
+ *   <li>the deadline due time or event start, and the event end, as epoch minutes (8 bytes each);</li>
+ *   <li>the task ID (8 bytes).</li>
+ * </ul>
+ *
+ * <p>Files written before tasks had IDs start with {@code BRR1} and have 32-byte slots without the ID. They are
+ * still read, as tasks without an ID, but never updated in place.</p>
+ *
+ * <p>Marking or unmarking a task rewrites only its flags byte, and deleting one only sets its tombstone bit.
+ * Adding a task writes its description and slot first and only then publishes it by bumping the used slot
+ * count, so a crash midway leaves at most some unreachable bytes behind. A batch that changes more than that one
+ * flags byte or that one count first saves the original bytes in the same rollback file as
+ * {@link IncrementalTextFile}, which the next load puts back if the batch is cut short, so a batch is applied
+ * either fully or not at all. Once the slots run out, or tombstones outnumber live tasks,
+ * {@link #canApply(List)} returns false and the caller rewrites the file from scratch, which reclaims every
+ * tombstone and all unreachable description bytes.</p>
+ */
+class RecordFile {
+    private static final byte[] MAGIC = {'B', 'R', 'R', '2'};
+    private static final byte[] MAGIC_WITHOUT_IDS = {'B', 'R', 'R', '1'};
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 40;
+    private static final int SLOT_SIZE_WITHOUT_IDS = 32;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int GENERATION_OFFSET = 16;
+    private static final int NEXT_ID_OFFSET = 24;
+    private static final int DESCRIPTION_LENGTH_OFFSET = 4;
+    private static final int DESCRIPTION_OFFSET_OFFSET = 8;
+    private static final int FIRST_TIME_OFFSET = 16;
+    private static final int SECOND_TIME_OFFSET = 24;
+    private static final int ID_OFFSET = 32;
+    private static final int MIN_CAPACITY = 64;
+    private static final int MIN_TOMBSTONES_TO_RECLAIM = 64;
+    private static final int TYPE_TODO = 0;
+    private static final int TYPE_DEADLINE = 1;
+    private static final int TYPE_EVENT = 2;
+    private static final int TYPE_MASK = 0x03;
+    private static final int TOMBSTONE_BIT = 0x40;
+    private static final int DONE_BIT = 0x80;
+    // The largest array most JVMs can allocate, which bounds the slot table and the file read on load.
+    private static final long MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final String ERROR_CORRUPTED_FILE = "Corrupted record data file: ";
+    private static final String ERROR_UNKNOWN_TASK_TYPE_SAVE = "Unknown task type, unable to save.";
+    private static final String ERROR_TOO_MANY_TASKS = "Too many tasks to save as a record data file: ";
+    private static final String ERROR_FILE_TOO_LARGE = "Record data file is too large to load: ";
+    private final Path path;
+    private final boolean hasIds;
+    private final int capacity;
+    private final long generation;
+    private final byte[] slotFlags;
+    private long nextId;
+    private int slotCount;
+    private int[] liveSlots;
+    private int liveCount;
+    private long heapEnd;
+
+    private RecordFile(Path path, boolean hasIds, int capacity, long generation, long nextId, int slotCount,
+            long heapEnd) {
+        this.path = path;
+        this.hasIds = hasIds;
+        this.capacity = capacity;
+        this.generation = generation;
+        this.nextId = nextId;
+        this.slotFlags = new byte[capacity];
+        this.slotCount = slotCount;
+        this.liveSlots = new int[Math.max(slotCount, MIN_CAPACITY)];
+        this.liveCount = 0;
+        this.heapEnd = heapEnd;
+    }
+
+    /**
+     * Returns whether the given file starts with the record file header.
+     *
+     * @param file File to inspect.
+     * @return true if the file exists and is a record file.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    static boolean isRecordFile(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            return Arrays.equals(magic, MAGIC) || Arrays.equals(magic, MAGIC_WITHOUT_IDS);
+        }
+    }
+
+    /**
+     * Writes a fresh record file holding the given tasks, with room for as many again, atomically replacing
+     * the file at the given path.
+     *
+     * @param file Data file to replace or create.
+     * @param tasks Tasks to write, in order.
+     * @param generation Generation of the snapshot.
+     * @param nextId Next free task ID, greater than the ID of every task ever saved.
+     * @return The record file, ready for in-place updates.
+     * @throws IOException If the file cannot be written.
+     * @throws BarryException If a task has an unknown type, or there are too many tasks for one slot table.
+     */
+    static RecordFile create(Path file, List<Task> tasks, long generation, long nextId)
+            throws IOException, BarryException {
+        long slotTableSize = Math.max(MIN_CAPACITY, tasks.size() * 2L) * SLOT_SIZE;
+        if (slotTableSize > MAX_BUFFER_SIZE) {
+            throw new BarryException(ERROR_TOO_MANY_TASKS + tasks.size() + ".");
+        }
+        int capacity = (int) (slotTableSize / SLOT_SIZE);
+        long heapStart = HEADER_SIZE + slotTableSize;
+        RecordFile recordFile = new RecordFile(file, true, capacity, generation, nextId, tasks.size(), heapStart);
+        List<byte[]> descriptions = new ArrayList<>(tasks.size());
+        ByteBuffer slots = ByteBuffer.allocate(capacity * SLOT_SIZE);
+        for (int slot = 0; slot < tasks.size(); slot++) {
+            byte[] description = tasks.get(slot).getName().getBytes(StandardCharsets.UTF_8);
+            putSlot(slots, slot, tasks.get(slot), description, recordFile.heapEnd);
+            recordFile.slotFlags[slot] = slots.get(slot * SLOT_SIZE);
+            recordFile.addLiveSlot(slot);
+            recordFile.heapEnd += description.length;
+            descriptions.add(description);
+        }
+        AtomicFile.replace(file, channel -> {
+            AtomicFile.writeFully(channel, recordFile.header());
+            AtomicFile.writeFully(channel, slots);
+            for (byte[] description : descriptions) {
+                AtomicFile.writeFully(channel, ByteBuffer.wrap(description));
+            }
+        });
+        return recordFile;
+    }
+
+    /**
+     * Reads the record file at the given path.
+     *
+     * @param file Record file to read.
+     * @param tasks List to append the live tasks to, in order.
+     * @return The record file, ready for in-place updates.
+     * @throws IOException If the file cannot be read.
+     * @throws BarryException If the file is truncated, too large to read or a slot is corrupted.
+     */
+    static RecordFile open(Path file, List<Task> tasks) throws IOException, BarryException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_BUFFER_SIZE) {
+                throw new BarryException(ERROR_FILE_TOO_LARGE + size + " bytes.");
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends.
+            }
+            buffer.flip();
+        }
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new BarryException(ERROR_CORRUPTED_FILE + "unexpected end of file.");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        boolean hasIds = Arrays.equals(magic, MAGIC);
+        int slotSize = hasIds ? SLOT_SIZE : SLOT_SIZE_WITHOUT_IDS;
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        int slotCount = buffer.getInt(SLOT_COUNT_OFFSET);
+        long heapStart = HEADER_SIZE + (long) capacity * slotSize;
+        if (capacity <= 0 || slotCount < 0 || slotCount > capacity || heapStart > buffer.limit()) {
+            throw new BarryException(ERROR_CORRUPTED_FILE + "invalid header.");
+        }
+        long nextId = hasIds ? buffer.getLong(NEXT_ID_OFFSET) : 0;
+        RecordFile recordFile = new RecordFile(file, hasIds, capacity, buffer.getLong(GENERATION_OFFSET), nextId,
+                slotCount, buffer.limit());
+        for (int slot = 0; slot < slotCount; slot++) {
+            int position = HEADER_SIZE + slot * slotSize;
+            int flags = buffer.get(position) & 0xFF;
+            recordFile.slotFlags[slot] = (byte) flags;
+            if ((flags & TOMBSTONE_BIT) == 0) {
+                Task task = getSlot(buffer, slot, position, flags, heapStart);
+                if (hasIds) {
+                    task.assignId(getId(buffer, slot, position));
+                }
+                tasks.add(task);
+                recordFile.addLiveSlot(slot);
+            }
+        }
+        return recordFile;
+    }
+
+    /**
+     * Returns the generation of the snapshot held in this file.
+     *
+     * @return Snapshot generation.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the next free task ID saved in this file.
+     *
+     * @return Next free task ID, or 0 if the file was written before it was saved.
+     */
+    long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Returns whether the given changes can be applied in place: the file has task IDs, no task is inserted before
+     * the end, there are enough free slots for the added tasks, and the removals would not leave more tombstones
+     * than live tasks.
+     *
+     * @param changes Changes to apply, in order.
+     * @return true if {@link #apply(List, long)} may be called with the changes.
+     */
+    boolean canApply(List<TaskChange> changes) {
+        if (!hasIds) {
+            return false;
+        }
+        int addCount = 0;
+        int removeCount = 0;
+        for (TaskChange change : changes) {
+            if (change.kind == TaskChange.Kind.INSERT) {
+                return false;
+            } else if (change.kind == TaskChange.Kind.ADD) {
+                addCount++;
+            } else if (change.kind == TaskChange.Kind.REMOVE) {
+                removeCount++;
+            }
+        }
+        int tombstoneCount = slotCount - liveCount + removeCount;
+        boolean isReclaimDue = tombstoneCount >= MIN_TOMBSTONES_TO_RECLAIM
+                && tombstoneCount > liveCount + addCount - removeCount;
+        return slotCount + addCount <= capacity && !isReclaimDue;
+    }
+
+    /**
+     * Applies the given changes in place and forces them to disk, all of them or, if the save is cut short,
+     * none of them once the next load has rolled the file back. Marks and unmarks write one byte each, removals
+     * write one tombstone byte each. If the changes cannot be applied, this record file is left as it was.
+     *
+     * @param changes Changes to apply, in order; {@link #canApply(List)} must hold for them.
+     * @param nextId Next free task ID after the changes; saved if it is greater than the one in the file.
+     * @throws IOException If the file cannot be written.
+     * @throws BarryException If an added task has an unknown type.
+     */
+    void apply(List<TaskChange> changes, long nextId) throws IOException, BarryException {
+        assert canApply(changes) : "changes must fit in place";
+        if (changes.isEmpty() && nextId <= this.nextId) {
+            return;
+        }
+        Batch batch = new Batch(slotCount, liveCount, heapEnd, this.nextId);
+        this.nextId = Math.max(this.nextId, nextId);
+        try {
+            for (TaskChange change : changes) {
+                planChange(batch, change);
+            }
+            write(batch);
+        } catch (IOException | BarryException e) {
+            rollBack(batch);
+            throw e;
+        }
+    }
+
+    /**
+     * Represents the slots a batch of changes writes, and what they held before, so that the batch can be
+     * written as a whole and undone in memory if it fails.
+     */
+    private static final class Batch {
+        private final int oldSlotCount;
+        private final int oldLiveCount;
+        private final long oldHeapEnd;
+        private final long oldNextId;
+        private final BitSet isTouched = new BitSet();
+        private final List<Integer> touchedSlots = new ArrayList<>();
+        private final List<Byte> originalFlags = new ArrayList<>();
+        private final List<ByteBuffer> addedSlots = new ArrayList<>();
+        private final List<byte[]> addedDescriptions = new ArrayList<>();
+        // Position and slot of each removal, in order; additions are recorded as position -1.
+        private final List<int[]> liveSlotChanges = new ArrayList<>();
+
+        private Batch(int oldSlotCount, int oldLiveCount, long oldHeapEnd, long oldNextId) {
+            this.oldSlotCount = oldSlotCount;
+            this.oldLiveCount = oldLiveCount;
+            this.oldHeapEnd = oldHeapEnd;
+            this.oldNextId = oldNextId;
+        }
+    }
+
+    /**
+     * Applies a change to the in-memory slots, recording in the batch what must be written and undone.
+     */
+    private void planChange(Batch batch, TaskChange change) throws BarryException {
+        switch (change.kind) {
+        case ADD:
+            assert change.index == liveCount : "tasks are only ever added at the end";
+            byte[] description = change.task.getName().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+            putSlot(slot, 0, change.task, description, heapEnd);
+            batch.addedDescriptions.add(description);
+            batch.addedSlots.add(slot);
+            heapEnd += description.length;
+            slotFlags[slotCount] = slot.get(0);
+            addLiveSlot(slotCount);
+            batch.liveSlotChanges.add(new int[] {-1, slotCount});
+            slotCount++;
+            break;
+        case MARK:
+            setFlags(batch, liveSlots[change.index], slotFlags[liveSlots[change.index]] | DONE_BIT);
+            break;
+        case UNMARK:
+            setFlags(batch, liveSlots[change.index], slotFlags[liveSlots[change.index]] & ~DONE_BIT);
+            break;
+        case REMOVE:
+            int removedSlot = liveSlots[change.index];
+            System.arraycopy(liveSlots, change.index + 1, liveSlots, change.index, liveCount - change.index - 1);
+            liveCount--;
+            batch.liveSlotChanges.add(new int[] {change.index, removedSlot});
+            setFlags(batch, removedSlot, slotFlags[removedSlot] | TOMBSTONE_BIT);
+            break;
+        default:
+            throw new BarryException(ERROR_UNKNOWN_TASK_TYPE_SAVE);
+        }
+    }
+
+    private void setFlags(Batch batch, int slot, int flags) {
+        if (!batch.isTouched.get(slot)) {
+            batch.isTouched.set(slot);
+            batch.touchedSlots.add(slot);
+            batch.originalFlags.add(slotFlags[slot]);
+        }
+        slotFlags[slot] = (byte) flags;
+    }
+
+    /**
+     * Writes a planned batch to the file. A single flags byte, or new slots published by a single write of the
+     * slot count, cannot be seen half written; any larger batch is guarded by a rollback file.
+     */
+    private void write(Batch batch) throws IOException, BarryException {
+        boolean isSlotCountChanged = slotCount != batch.oldSlotCount;
+        List<Long> offsets = new ArrayList<>();
+        List<ByteBuffer> originals = new ArrayList<>();
+        for (int i = 0; i < batch.touchedSlots.size(); i++) {
+            // Slots past the old count are not visible until the count is written.
+            if (batch.touchedSlots.get(i) < batch.oldSlotCount) {
+                offsets.add(slotPosition(batch.touchedSlots.get(i)));
+                originals.add(ByteBuffer.wrap(new byte[] {batch.originalFlags.get(i)}));
+            }
+        }
+        if (isSlotCountChanged) {
+            offsets.add((long) SLOT_COUNT_OFFSET);
+            originals.add(ByteBuffer.allocate(Integer.BYTES).putInt(0, batch.oldSlotCount));
+        }
+        boolean needsRollback = originals.size() > 1;
+        if (needsRollback) {
+            IncrementalTextFile.writeRollback(path, batch.oldHeapEnd, offsets, originals);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long descriptionOffset = batch.oldHeapEnd;
+            for (int i = 0; i < batch.addedSlots.size(); i++) {
+                byte[] description = batch.addedDescriptions.get(i);
+                writeFully(channel, ByteBuffer.wrap(description), descriptionOffset);
+                writeFully(channel, batch.addedSlots.get(i), slotPosition(batch.oldSlotCount + i));
+                descriptionOffset += description.length;
+            }
+            for (int slot : batch.touchedSlots) {
+                writeFully(channel, ByteBuffer.wrap(new byte[] {slotFlags[slot]}), slotPosition(slot));
+            }
+            if (nextId != batch.oldNextId) {
+                // The next free ID only ever grows, so it needs no rollback: one left too high merely skips IDs.
+                writeFully(channel, ByteBuffer.allocate(Long.BYTES).putLong(0, nextId), NEXT_ID_OFFSET);
+            }
+            if (isSlotCountChanged) {
+                // New slots must be durable before the header makes them visible.
+                channel.force(true);
+                ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).putInt(0, slotCount);
+                writeFully(channel, count, SLOT_COUNT_OFFSET);
+            }
+            channel.force(false);
+        }
+        if (needsRollback) {
+            IncrementalTextFile.discardRollback(path);
+        }
+    }
+
+    /**
+     * Undoes a batch that failed in memory, so that this record file again matches the file before the batch.
+     */
+    private void rollBack(Batch batch) {
+        for (int i = 0; i < batch.touchedSlots.size(); i++) {
+            slotFlags[batch.touchedSlots.get(i)] = batch.originalFlags.get(i);
+        }
+        for (int i = batch.liveSlotChanges.size() - 1; i >= 0; i--) {
+            int position = batch.liveSlotChanges.get(i)[0];
+            if (position < 0) {
+                liveCount--;
+                continue;
+            }
+            System.arraycopy(liveSlots, position, liveSlots, position + 1, liveCount - position);
+            liveSlots[position] = batch.liveSlotChanges.get(i)[1];
+            liveCount++;
+        }
+        assert liveCount == batch.oldLiveCount : "live slots must be restored";
+        slotCount = batch.oldSlotCount;
+        heapEnd = batch.oldHeapEnd;
+        nextId = batch.oldNextId;
+    }
+
+    private void addLiveSlot(int slot) {
+        if (liveCount == liveSlots.length) {
+            liveSlots = Arrays.copyOf(liveSlots, liveCount * 2);
+        }
+        liveSlots[liveCount++] = slot;
+    }
+
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).putInt(capacity).putInt(slotCount).putInt(0).putLong(generation).putLong(nextId);
+        header.clear();
+        return header;
+    }
+
+    private static long slotPosition(int slot) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    private static void putSlot(ByteBuffer slots, int slot, Task task, byte[] description, long descriptionOffset)
+            throws BarryException {
+        int base = slot * SLOT_SIZE;
+        int doneBit = task.isDone() ? DONE_BIT : 0;
+        if (task instanceof ToDo) {
+            slots.put(base, (byte) (TYPE_TODO | doneBit));
+        } else if (task instanceof Deadline deadline) {
+            slots.put(base, (byte) (TYPE_DEADLINE | doneBit));
+            slots.putLong(base + FIRST_TIME_OFFSET, deadline.getByEpochMinutes());
+        } else if (task instanceof Event event) {
+            slots.put(base, (byte) (TYPE_EVENT | doneBit));
+            slots.putLong(base + FIRST_TIME_OFFSET, event.getFromEpochMinutes());
+            slots.putLong(base + SECOND_TIME_OFFSET, event.getToEpochMinutes());
+        } else {
+            throw new BarryException(ERROR_UNKNOWN_TASK_TYPE_SAVE);
+        }
+        slots.putInt(base + DESCRIPTION_LENGTH_OFFSET, description.length);
+        slots.putLong(base + DESCRIPTION_OFFSET_OFFSET, descriptionOffset);
+        slots.putLong(base + ID_OFFSET, task.getId());
+    }
+
+    private static Task getSlot(ByteBuffer buffer, int slot, int position, int flags, long heapStart)
+            throws BarryException {
+        int length = buffer.getInt(position + DESCRIPTION_LENGTH_OFFSET);
+        long offset = buffer.getLong(position + DESCRIPTION_OFFSET_OFFSET);
+        if (length < 0 || offset < heapStart || offset + length > buffer.limit()) {
+            throw new BarryException(ERROR_CORRUPTED_FILE + "description out of bounds in slot " + slot + ".");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get((int) offset, bytes);
+        String name = new String(bytes, StandardCharsets.UTF_8);
+        Task task;
+        switch (flags & TYPE_MASK) {
+        case TYPE_TODO:
+            task = new ToDo(name);
+            break;
+        case TYPE_DEADLINE:
+            task = Deadline.ofEpochMinutes(name, buffer.getLong(position + FIRST_TIME_OFFSET));
+            break;
+        case TYPE_EVENT:
+            task = Event.ofEpochMinutes(name, buffer.getLong(position + FIRST_TIME_OFFSET),
+                    buffer.getLong(position + SECOND_TIME_OFFSET));
+            break;
+        default:
+            throw new BarryException(ERROR_CORRUPTED_FILE + "unknown task type in slot " + slot + ".");
+        }
+        if ((flags & DONE_BIT) != 0) {
+            task.restoreDoneState(true);
+        }
+        return task;
+    }
+
+    private static long getId(ByteBuffer buffer, int slot, int position) throws BarryException {
+        long id = buffer.getLong(position + ID_OFFSET);
+        if (id <= 0) {
+            throw new BarryException(ERROR_CORRUPTED_FILE + "invalid task ID in slot " + slot + ".");
+        }
+        return id;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long next = position;
+        while (buffer.hasRemaining()) {
+            next += channel.write(buffer, next);
+        }
+    }
+}
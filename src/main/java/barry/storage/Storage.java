@@ -1,21 +1,29 @@
 package barry.storage;
 
-import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import barry.exception.BarryException;
 import barry.task.Deadline;
 import barry.task.Event;
 import barry.task.Task;
+import barry.task.TaskChange;
 import barry.task.TaskList;
 import barry.task.ToDo;
 
@@ -23,6 +31,27 @@ import barry.task.ToDo;
  * Represents the data file in the hard disk that stores the user's task list.
  * Automatically loads the data in the file when the driver is started, and automatically
  * updates the save file whenever the task list changes.
+ *
+ * <p>When journaling is enabled, saves append the task list's pending changes to a journal next to
+ * the data file, and loading replays that journal on top of the data file (the snapshot).
+ * Once the journal passes the configured compaction threshold, a new snapshot is written in the
+ * background from a copy-on-write view of the task list and swapped in only when it is complete.
+ * With write-behind enabled, bursts of saves are coalesced into a single background flush.
+ * Without a journal, incremental saves rewrite only the changed lines of a text data file.</p>
+ *
+ * <p>Snapshots are pipe-separated text by default, or the compact format of {@code BinaryTaskCodec} when
+ * binary format is enabled. With record format enabled, the data file is a {@code RecordFile} of fixed-width
+ * records that saves update in place instead of journaling: marking a task rewrites a single byte.
+ * Loading detects the format from the file header, and the first save after loading a data file in
+ * another format migrates it, as does the first save after loading tasks saved without their IDs.</p>
+ *
+ * <p>Every format also saves the next free task ID, which stays above the IDs of deleted tasks, so that a task
+ * list loaded from the file through {@link #getNextId()} never gives a deleted task's ID to a new one. Text
+ * snapshots keep it in a {@code # next} header line and journals in the IDs of their added tasks.</p>
+ *
+ * <p>Every snapshot is written to a temporary file, forced to disk and atomically moved over the data
+ * file, and journal appends are forced before a save returns. Concurrent saves are group-committed,
+ * so one write and fsync covers every save that arrived while the previous one was in progress.</p>
  */
 public class Storage {
     private static final String SAVE_DATE_TIME_PATTERN = "yyyy-MM-dd HHmm";
@@ -37,14 +66,59 @@ public class Storage {
     private static final String INITIAL_FILE_CREATION_MESSAGE = "No data file exists yet. Starting an empty task list!";
     private static final String ERROR_LOAD_FAILED = "Failed to load saved tasks: ";
     private static final String ERROR_CREATE_FOLDER_FAILED = "Failed to create data folder: ";
-    private static final String ERROR_CORRUPTED_LINE = "Corrupted save file line: ";
-    private static final String ERROR_CORRUPTED_DONE_FLAG = "Corrupted done flag in line: ";
-    private static final String ERROR_CORRUPTED_DEADLINE = "Corrupted deadline line: ";
-    private static final String ERROR_CORRUPTED_EVENT = "Corrupted event line: ";
-    private static final String ERROR_UNKNOWN_TASK_TYPE = "Unknown task type in data file: ";
-    private static final String ERROR_CORRUPTED_DATE_TIME = "Corrupted date/time in data file line: ";
     private static final String ERROR_UNKNOWN_TASK_TYPE_SAVE = "Unknown task type, unable to save.";
+    private static final String ERROR_CORRUPTED_JOURNAL_RECORD = "Corrupted journal record: ";
+    private static final String ERROR_SAVE_FAILED = "Failed to save tasks: ";
+    private static final String ERROR_JOURNAL_FAILED = "Failed to write journal: ";
+    private static final String ERROR_DUPLICATE_ID = "Duplicate task ID in data file: ";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final String GENERATION_HEADER_PREFIX = "# gen ";
+    private static final String NEXT_ID_HEADER_PREFIX = "# next ";
+    private static final String JOURNAL_ADD = "+";
+    private static final String JOURNAL_MARK = "M";
+    private static final String JOURNAL_UNMARK = "U";
+    private static final String JOURNAL_REMOVE = "-";
     private final Path filePath;
+    private final StorageOptions options;
+    private final Journal journal;
+    private final Compactor compactor = new Compactor();
+    private final GroupCommit groupCommit = new GroupCommit();
+    private final TaskLineDecoder lineDecoder = new TaskLineDecoder();
+    private final WriteBehindSaver writeBehindSaver;
+    private final AtomicLong saveRequestCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private volatile long snapshotGeneration = 0;
+    // Greater than the ID of every task ever saved to the data file.
+    private volatile long nextId = 1;
+    private long journalGeneration = 0;
+    private volatile boolean isSnapshotCurrent = false;
+    private volatile SnapshotFormat snapshotFormat = SnapshotFormat.TEXT;
+    private RecordFile recordFile;
+    private IncrementalTextFile textFile;
+
+    /**
+     * Holds the changes drained for one flush, the snapshot taken with them if any, and how they will be saved.
+     */
+    private static final class FlushPlan {
+        private final List<TaskChange> changes;
+        private final long nextId;
+        private List<Task> view;
+        private boolean canUpdateInPlace;
+        private boolean canRewriteChangedLines;
+        private boolean canJournal;
+
+        private FlushPlan(List<TaskChange> changes, long nextId) {
+            this.changes = changes;
+            this.nextId = nextId;
+        }
+    }
+
+    /**
+     * Represents the on-disk format of the data file.
+     */
+    private enum SnapshotFormat {
+        TEXT, BINARY, RECORD
+    }
 
     /**
      * Constructs a storage component that reads/writes tasks to a file.
@@ -52,8 +126,23 @@ public class Storage {
      * @param filePath Relative path to the save file (e.g., {@code "./data/barry.txt"}).
      */
     public Storage(String filePath) {
+        this(filePath, StorageOptions.defaults());
+    }
+
+    /**
+     * Constructs a storage component that reads/writes tasks to a file using the given options.
+     *
+     * @param filePath Relative path to the save file (e.g., {@code "./data/barry.txt"}).
+     * @param options How tasks should be persisted.
+     */
+    public Storage(String filePath, StorageOptions options) {
         assert filePath != null : "filePath must not be null";
+        assert options != null : "options must not be null";
         this.filePath = Paths.get(filePath);
+        this.options = options;
+        this.journal = new Journal(this.filePath);
+        this.writeBehindSaver = !options.isWriteBehindEnabled() ? null : new WriteBehindSaver(
+                options.getWriteBehindIntervalMillis(), options.getWriteBehindMaxDirty(), this::persist);
     }
 
     /**
@@ -70,15 +159,157 @@ public class Storage {
      * If the parent directory does not exist, it will be created.
      * If the save file does not exist,
      * this method returns an empty task list.
+     * Any journaled changes that belong to the save file are replayed on top of it.
+     * A task list made from the loaded tasks should then reserve the IDs below {@link #getNextId()}.
      *
      * @return A list of tasks loaded from disk.
-     * @throws BarryException If the save file exists but cannot be read or contains corrupted lines.
+     * @throws BarryException If the save file exists but cannot be read, contains corrupted lines, or gives two
+     *     tasks the same ID.
      */
     public ArrayList<Task> load() throws BarryException {
+        isSnapshotCurrent = false;
+        textFile = null;
+        nextId = 1;
         ensureParentDirectoryExists();
-        List<String> linesFromFile = readAllLinesOrEmpty();
-        assert linesFromFile != null : "lines from file must not be null";
-        return parseTasksFromLines(linesFromFile);
+        recoverInterruptedSave();
+        ArrayList<Task> tasks;
+        switch (detectSnapshotFormat()) {
+        case RECORD:
+            tasks = loadRecordFile();
+            break;
+        case BINARY:
+            tasks = loadBinarySnapshot();
+            break;
+        default:
+            tasks = loadTextSnapshot();
+            break;
+        }
+        if (replayJournal(tasks) > 0) {
+            // The record file no longer matches the task list, so the first save rewrites it.
+            recordFile = null;
+        }
+        checkIds(tasks);
+        // Tasks saved before tasks had IDs are given theirs by the task list, so the first save writes them out.
+        isSnapshotCurrent = tasks.stream().allMatch(task -> task.getId() != 0);
+        return tasks;
+    }
+
+    /**
+     * Returns the next free task ID of the data file as of the last load or save: greater than the ID of every
+     * task ever saved to it, including tasks that have since been deleted.
+     *
+     * @return The next free task ID.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Rejects loaded tasks that share an ID, and raises the next free ID above every loaded one, as files
+     * written before it was saved do not record it.
+     */
+    private void checkIds(List<Task> tasks) throws BarryException {
+        HashSet<Long> ids = new HashSet<>();
+        long maxId = 0;
+        for (Task task : tasks) {
+            if (task.getId() != 0 && !ids.add(task.getId())) {
+                throw new BarryException(ERROR_DUPLICATE_ID + task.getId());
+            }
+            maxId = Math.max(maxId, task.getId());
+        }
+        nextId = Math.max(nextId, maxId + 1);
+    }
+
+    private void recoverInterruptedSave() throws BarryException {
+        try {
+            IncrementalTextFile.recover(filePath);
+        } catch (IOException e) {
+            throw new BarryException(ERROR_LOAD_FAILED + e.getMessage());
+        }
+    }
+
+    private SnapshotFormat detectSnapshotFormat() throws BarryException {
+        try {
+            if (RecordFile.isRecordFile(filePath)) {
+                return SnapshotFormat.RECORD;
+            }
+            return BinaryTaskCodec.isBinary(filePath) ? SnapshotFormat.BINARY : SnapshotFormat.TEXT;
+        } catch (IOException e) {
+            throw new BarryException(ERROR_LOAD_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the text snapshot line by line, decoding each task as soon as its line is read,
+     * so the file is never held in memory as a list of lines. Large files are decoded in parallel chunks.
+     */
+    private ArrayList<Task> loadTextSnapshot() throws BarryException {
+        snapshotGeneration = 0;
+        snapshotFormat = SnapshotFormat.TEXT;
+        recordFile = null;
+        ArrayList<Task> tasks = new ArrayList<>();
+        // Guard condition if file path does not exist yet.
+        if (!Files.exists(this.filePath)) {
+            System.out.println(INITIAL_FILE_CREATION_MESSAGE);
+            return tasks;
+        }
+
+        try (BufferedReader reader = newStrictReader(Files.newInputStream(this.filePath))) {
+            String firstLine = reader.readLine();
+            if (firstLine != null && firstLine.startsWith(GENERATION_HEADER_PREFIX)) {
+                snapshotGeneration = parseHeader(firstLine, GENERATION_HEADER_PREFIX);
+                firstLine = reader.readLine();
+            }
+            if (firstLine != null && firstLine.startsWith(NEXT_ID_HEADER_PREFIX)) {
+                nextId = parseHeader(firstLine, NEXT_ID_HEADER_PREFIX);
+                firstLine = reader.readLine();
+            }
+            if (firstLine == null) {
+                return tasks;
+            }
+            if (options.shouldLoadInParallel(Files.size(this.filePath))) {
+                return ParallelTaskLoader.load(this.filePath, ForkJoinPool.commonPool());
+            }
+            lineDecoder.decodeInto(firstLine, tasks);
+            lineDecoder.decodeAll(reader, tasks);
+        } catch (IOException e) {
+            throw new BarryException(ERROR_LOAD_FAILED + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns a buffered UTF-8 reader over the stream that reports malformed input,
+     * as {@code Files.readAllLines} did, instead of replacing it.
+     */
+    static BufferedReader newStrictReader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()), READ_BUFFER_SIZE);
+    }
+
+    private ArrayList<Task> loadBinarySnapshot() throws BarryException {
+        try {
+            BinaryTaskCodec.Snapshot snapshot = BinaryTaskCodec.read(filePath);
+            snapshotGeneration = snapshot.generation;
+            nextId = snapshot.nextId;
+            snapshotFormat = SnapshotFormat.BINARY;
+            recordFile = null;
+            return snapshot.tasks;
+        } catch (IOException e) {
+            throw new BarryException(ERROR_LOAD_FAILED + e.getMessage());
+        }
+    }
+
+    private ArrayList<Task> loadRecordFile() throws BarryException {
+        try {
+            ArrayList<Task> tasks = new ArrayList<>();
+            recordFile = RecordFile.open(filePath, tasks);
+            snapshotGeneration = recordFile.getGeneration();
+            nextId = recordFile.getNextId();
+            snapshotFormat = SnapshotFormat.RECORD;
+            return tasks;
+        } catch (IOException e) {
+            throw new BarryException(ERROR_LOAD_FAILED + e.getMessage());
+        }
     }
 
     /**
@@ -97,37 +328,74 @@ public class Storage {
         }
     }
 
-    private List<String> readAllLinesOrEmpty() throws BarryException {
-        // Guard condition if file path does not exist yet.
-        if (!Files.exists(this.filePath)) {
-            System.out.println(INITIAL_FILE_CREATION_MESSAGE);
-            return new ArrayList<>();
+    private long parseHeader(String header, String prefix) throws BarryException {
+        try {
+            return Long.parseLong(header.substring(prefix.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new BarryException(TaskLineDecoder.ERROR_CORRUPTED_LINE + header);
         }
+    }
 
+    private int replayJournal(ArrayList<Task> tasks) throws BarryException {
         try {
-            return Files.readAllLines(this.filePath);
+            int replayedCount = 0;
+            for (String record : journal.readRecords(snapshotGeneration)) {
+                if (!record.trim().isEmpty()) {
+                    applyJournalRecord(tasks, record);
+                    replayedCount++;
+                }
+            }
+            journalGeneration = journal.getActiveGeneration();
+            return replayedCount;
         } catch (IOException e) {
             throw new BarryException(ERROR_LOAD_FAILED + e.getMessage());
         }
     }
 
-    private ArrayList<Task> parseTasksFromLines(List<String> linesFromFile) throws BarryException {
+    private void applyJournalRecord(ArrayList<Task> tasks, String record) throws BarryException {
+        String prefix = JOURNAL_ADD + FIELD_SEPARATOR;
+        if (record.startsWith(prefix)) {
+            Task task = parseLineToTasks(record.substring(prefix.length()));
+            // The task may have been removed by a later record, but its ID must still not be reused.
+            nextId = Math.max(nextId, task.getId() + 1);
+            tasks.add(task);
+            return;
+        }
+        int separator = record.indexOf('|');
+        if (separator < 0 || record.indexOf('|', separator + 1) >= 0) {
+            throw new BarryException(ERROR_CORRUPTED_JOURNAL_RECORD + record);
+        }
+        int index = parseJournalIndex(record.substring(separator + 1), tasks.size(), record);
+        switch (record.substring(0, separator).trim()) {
+        case JOURNAL_MARK:
+            tasks.get(index).restoreDoneState(true);
+            break;
+        case JOURNAL_UNMARK:
+            tasks.get(index).restoreDoneState(false);
+            break;
+        case JOURNAL_REMOVE:
+            tasks.remove(index);
+            break;
+        default:
+            throw new BarryException(ERROR_CORRUPTED_JOURNAL_RECORD + record);
+        }
+    }
+
+    private int parseJournalIndex(String indexString, int size, String record) throws BarryException {
         try {
-            return linesFromFile.stream()
-                    .filter(line -> !line.trim().isEmpty())
-                    .map(this::parseLineToTasksUnchecked)
-                    .collect(Collectors.toCollection(ArrayList::new));
-        } catch (RuntimeException e) {
-            if (e.getCause() instanceof BarryException) {
-                throw (BarryException) e.getCause();
+            int index = Integer.parseInt(indexString.trim());
+            if (index < 0 || index >= size) {
+                throw new BarryException(ERROR_CORRUPTED_JOURNAL_RECORD + record);
             }
-            throw e;
+            return index;
+        } catch (NumberFormatException e) {
+            throw new BarryException(ERROR_CORRUPTED_JOURNAL_RECORD + record);
         }
     }
 
     /**
      * Parses a single line from the save file into a {@link Task}.
-     * Expected format (pipe-separated):
+     * Expected format (pipe-separated), each optionally preceded by the task ID and a separator:
      * <ul>
      *   <li>{@code T | doneFlag | description}</li>
      *   <li>{@code D | doneFlag | description | yyyy-MM-dd HHmm}</li>
@@ -136,116 +404,284 @@ public class Storage {
      *
      * @param line A non-empty line from the save file.
      * @return A task constructed from the data in the line.
-     * @throws BarryException If the line format, done flag, or task type is invalid/corrupted.
+     * @throws BarryException If the line format, done flag, task type, or a date is invalid/corrupted.
      */
     public Task parseLineToTasks(String line) throws BarryException {
-        assert line != null : "line must not be null";
-        String[] parts = splitSaveLine(line);
-        boolean isDone = parseDoneFlag(parts[1].trim(), line);
-        Task task = parseTaskFromParts(parts, line);
+        Task task = lineDecoder.decode(line);
         assert task != null : "task must not be null";
-        applyDoneState(task, isDone);
         return task;
     }
 
-    private String[] splitSaveLine(String line) throws BarryException {
-        String[] parts = line.split("\\s*\\|\\s*");
-        assert parts.length >= 1 : "parts must not be empty";
+    /**
+     * Saves the given tasks to the save file.
+     * Overwrites any existing file contents. Creates the parent directory if necessary.
+     *
+     * <p>When journaling is enabled and the save file holds the state this storage last loaded or saved,
+     * only the list's pending changes are appended to the journal, so the cost does not grow with the
+     * size of the list. When write-behind is enabled, this only marks the list dirty and returns; the
+     * latest state is persisted by a background flusher, by {@link #flush()}, or on JVM shutdown.</p>
+     *
+     * @param tasks The tasks to save.
+     * @throws BarryException If writing fails due to an I/O error, or an earlier background flush failed.
+     */
+    public void save(TaskList tasks) throws BarryException {
+        assert tasks != null : "tasks must not be null";
+        saveRequestCount.incrementAndGet();
+        if (writeBehindSaver != null) {
+            writeBehindSaver.markDirty(tasks);
+            return;
+        }
+        persist(tasks);
+    }
+
+    /**
+     * Persists any changes still waiting for the write-behind flusher.
+     * Does nothing when write-behind is disabled, as every save is then already persisted.
+     *
+     * @throws BarryException If writing fails due to an I/O error.
+     */
+    public void flush() throws BarryException {
+        if (writeBehindSaver != null) {
+            writeBehindSaver.flush();
+        }
+    }
+
+    /**
+     * Returns how many times {@link #save(TaskList)} has been called.
+     *
+     * @return Number of save requests.
+     */
+    public long getSaveRequestCount() {
+        return saveRequestCount.get();
+    }
+
+    /**
+     * Returns how many times the task list was actually written to disk.
+     * With write-behind enabled, the difference to {@link #getSaveRequestCount()} is the number of
+     * flushes saved by coalescing.
+     *
+     * @return Number of disk flushes.
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Waits for a background compaction, if one is running, to finish.
+     *
+     * @throws BarryException If the compaction failed.
+     */
+    void awaitCompaction() throws BarryException {
+        compactor.await();
+    }
+
+    private void persist(TaskList tasks) throws BarryException {
+        groupCommit.commit(() -> persistLatest(tasks));
+    }
 
-        // All lines have at least these 3 parts: type | doneState | description.
-        if (parts.length < 3) {
-            throw new BarryException(ERROR_CORRUPTED_LINE + line);
+    private void persistLatest(TaskList tasks) throws BarryException {
+        flushCount.incrementAndGet();
+        // Changes and snapshot must describe the same cut, or a change could end up in both.
+        FlushPlan plan = tasks.atomically(() -> planFlush(tasks));
+        if (plan.canUpdateInPlace) {
+            updateRecordFile(plan.changes, plan.nextId);
+        } else if (plan.canRewriteChangedLines) {
+            rewriteChangedLines(plan.view, plan.changes, plan.nextId);
+        } else if (!plan.canJournal) {
+            writeSnapshot(plan.view, plan.nextId);
+        } else {
+            // Added tasks are journaled with their IDs, so replaying the journal restores the next free ID.
+            appendToJournal(plan.changes);
+            if (plan.view != null) {
+                startCompaction(plan.view, plan.nextId);
+            }
         }
-        return parts;
+        nextId = plan.nextId;
     }
 
-    private boolean parseDoneFlag(String doneString, String line) throws BarryException {
-        if (DONE_FLAG_TRUE.equals(doneString)) {
-            return true;
+    private FlushPlan planFlush(TaskList tasks) {
+        // A list that did not reserve the IDs below the loaded next free ID must not lower it.
+        FlushPlan plan = new FlushPlan(tasks.drainChanges(), Math.max(nextId, tasks.getNextId()));
+        // A snapshot in another format is migrated by the full save below.
+        boolean isFormatCurrent = isSnapshotCurrent && dataFileExists() && snapshotFormat == requestedFormat();
+        if (options.isRecordFormat()) {
+            plan.canUpdateInPlace = isFormatCurrent && recordFile != null && recordFile.canApply(plan.changes);
+        } else if (options.isJournalEnabled()) {
+            // The journal replays additions as appends, so a task put back in the middle needs a full save.
+            plan.canJournal = isFormatCurrent && plan.changes.stream()
+                    .noneMatch(change -> change.kind == TaskChange.Kind.INSERT);
+        } else {
+            plan.canRewriteChangedLines = isFormatCurrent && textFile != null
+                    && textFile.canStoreNextId(plan.nextId);
         }
-        if (DONE_FLAG_FALSE.equals(doneString)) {
-            return false;
+        if (!plan.canUpdateInPlace && (!plan.canJournal || isCompactionDue(plan.changes.size()))) {
+            plan.view = tasks.snapshot();
         }
-        throw new BarryException(ERROR_CORRUPTED_DONE_FLAG + line);
+        return plan;
     }
 
-    private Task parseTaskFromParts(String[] parts, String line) throws BarryException {
-        String type = parts[0].trim();
-        String desc = parts[2].trim();
+    private SnapshotFormat requestedFormat() {
+        if (options.isRecordFormat()) {
+            return SnapshotFormat.RECORD;
+        }
+        return options.isBinaryFormat() ? SnapshotFormat.BINARY : SnapshotFormat.TEXT;
+    }
 
+    private void updateRecordFile(List<TaskChange> changes, long nextId) throws BarryException {
         try {
-            switch (type) {
-            case TYPE_TODO:
-                return new ToDo(desc);
-            case TYPE_DEADLINE:
-                // Deadline has 4 parts: type, doneState, description, byDate
-                ensureMinimumParts(parts, 4, ERROR_CORRUPTED_DEADLINE + line);
-                LocalDateTime by = parseSavedDateTime(parts[3].trim());
-                return new Deadline(desc, by);
-            case TYPE_EVENT:
-                // Event has 5 parts: type, doneState, description, startDate, endDate
-                ensureMinimumParts(parts, 5, ERROR_CORRUPTED_EVENT + line);
-                LocalDateTime start = parseSavedDateTime(parts[3].trim());
-                LocalDateTime end = parseSavedDateTime(parts[4].trim());
-                return new Event(desc, start, end);
-            default:
-                throw new BarryException(ERROR_UNKNOWN_TASK_TYPE + line);
-            }
-        } catch (DateTimeParseException e) {
-            throw new BarryException(ERROR_CORRUPTED_DATE_TIME + line);
+            recordFile.apply(changes, nextId);
+        } catch (IOException e) {
+            // Some of the changes may have reached the file, so the next save rewrites it from scratch.
+            isSnapshotCurrent = false;
+            recordFile = null;
+            throw new BarryException(ERROR_SAVE_FAILED + e.getMessage());
         }
     }
 
-    private void ensureMinimumParts(String[] parts, int minParts, String errorMessage) throws BarryException {
-        if (parts.length < minParts) {
-            throw new BarryException(errorMessage);
+    private void rewriteChangedLines(List<Task> view, List<TaskChange> changes, long nextId)
+            throws BarryException {
+        try {
+            textFile.apply(view, changes, nextId, this::taskToLine);
+        } catch (IOException e) {
+            isSnapshotCurrent = false;
+            textFile = null;
+            throw new BarryException(ERROR_SAVE_FAILED + e.getMessage());
         }
     }
 
-    private void applyDoneState(Task task, boolean isDone) {
-        assert task != null : "task must not be null";
-        // Default task on loading is a new, unmarked Task object.
-        if (isDone) {
-            task.mark();
+    private void appendToJournal(List<TaskChange> changes) throws BarryException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<String> records = new ArrayList<>();
+        for (TaskChange change : changes) {
+            records.add(changeToJournalRecord(change));
+        }
+        try {
+            journal.append(records, journalGeneration);
+        } catch (IOException e) {
+            isSnapshotCurrent = false;
+            throw new BarryException(ERROR_JOURNAL_FAILED + e.getMessage());
         }
     }
 
-    private Task parseLineToTasksUnchecked(String line) {
+    private String changeToJournalRecord(TaskChange change) throws BarryException {
+        switch (change.kind) {
+        case ADD:
+            return JOURNAL_ADD + FIELD_SEPARATOR + taskToLine(change.task);
+        case MARK:
+            return JOURNAL_MARK + FIELD_SEPARATOR + change.index;
+        case UNMARK:
+            return JOURNAL_UNMARK + FIELD_SEPARATOR + change.index;
+        case REMOVE:
+            return JOURNAL_REMOVE + FIELD_SEPARATOR + change.index;
+        default:
+            throw new BarryException(ERROR_UNKNOWN_TASK_TYPE_SAVE);
+        }
+    }
+
+    private boolean isCompactionDue(int pendingRecords) {
+        int recordCount = journal.getRecordCount() + pendingRecords;
+        return options.shouldCompact(recordCount, journal.getSizeBytes()) && !compactor.isRunning();
+    }
+
+    private void startCompaction(List<Task> view, long nextId) {
         try {
-            return parseLineToTasks(line);
-        } catch (BarryException e) {
-            throw new RuntimeException(e);
+            journal.rotate(journalGeneration);
+        } catch (IOException e) {
+            return; // The journal is still intact, so compaction is simply retried after the next save.
         }
+        journalGeneration++;
+        long newGeneration = journalGeneration;
+        compactor.submit(() -> {
+            writeSnapshotFile(view, newGeneration, nextId);
+            snapshotGeneration = newGeneration;
+            journal.deleteBefore(newGeneration);
+        });
     }
 
-    /**
-     * Saves the given tasks to the save file.
-     * Overwrites any existing file contents. Creates the parent directory if necessary.
-     *
-     * @param tasks The tasks to save.
-     * @throws BarryException If writing fails due to an I/O error.
-     */
-    public void save(TaskList tasks) throws BarryException {
+    private void writeSnapshot(List<Task> tasks, long nextId) throws BarryException {
         ensureParentDirectoryExists();
+        try {
+            // A full snapshot supersedes any compaction, but must not race with its file swap.
+            compactor.await();
+        } catch (BarryException e) {
+            // The failed compaction never swapped its snapshot in, and this save replaces it anyway.
+        }
 
-        try (FileWriter fw = new FileWriter(filePath.toFile(), false)) {
-            for (int i = 0; i < tasks.size(); i++) {
-                fw.write(taskToLine(tasks.getTask(i)));
-                fw.write(System.lineSeparator());
+        try {
+            // The generation is only needed to tell stale journals apart, so plain saves leave it out.
+            boolean shouldWriteHeader = options.isJournalEnabled() || requestedFormat() != SnapshotFormat.TEXT
+                    || journal.exists();
+            long newGeneration = shouldWriteHeader ? journalGeneration + 1 : 0;
+            // A rollback left by a failed incremental save must never be applied on top of the new file.
+            IncrementalTextFile.recover(filePath);
+            textFile = null;
+            if (options.isRecordFormat()) {
+                recordFile = RecordFile.create(filePath, tasks, newGeneration, nextId);
+            } else {
+                textFile = writeSnapshotFile(tasks, newGeneration, nextId);
+                recordFile = null;
             }
+            snapshotFormat = requestedFormat();
+            journal.delete();
+            snapshotGeneration = newGeneration;
+            journalGeneration = newGeneration;
+            isSnapshotCurrent = true;
         } catch (IOException e) {
-            throw new BarryException("Failed to save tasks: " + e.getMessage());
+            isSnapshotCurrent = false;
+            throw new BarryException(ERROR_SAVE_FAILED + e.getMessage());
         }
     }
 
+    /**
+     * Writes a full snapshot in the configured format, and returns the layout of the written text file
+     * when only changed lines should be rewritten by later saves, or null otherwise.
+     */
+    private IncrementalTextFile writeSnapshotFile(List<Task> tasks, long generation, long nextId)
+            throws IOException, BarryException {
+        if (options.isBinaryFormat()) {
+            AtomicFile.replace(filePath, channel -> BinaryTaskCodec.write(channel, tasks, generation, nextId));
+            return null;
+        }
+        String generationHeader = generation > 0
+                ? GENERATION_HEADER_PREFIX + generation + System.lineSeparator()
+                : "";
+        String header = generationHeader + NEXT_ID_HEADER_PREFIX + nextId + System.lineSeparator();
+        IncrementalTextFile layout = options.isIncrementalSave() && !options.isJournalEnabled()
+                ? new IncrementalTextFile(filePath, header.length(),
+                        generationHeader.length() + NEXT_ID_HEADER_PREFIX.length(), nextId)
+                : null;
+        AtomicFile.replace(filePath, channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            writer.write(header);
+            for (Task task : tasks) {
+                String line = taskToLine(task);
+                writer.write(line);
+                writer.write(System.lineSeparator());
+                if (layout != null) {
+                    layout.addLine(line);
+                }
+            }
+            writer.flush();
+        });
+        return layout;
+    }
+
     /**
      * Converts a {@link Task} into a single-line representation suitable for saving to disk.
+     * The line starts with the task ID, unless the task has not been given one.
      *
      * @param task The task to convert.
      * @return A pipe-separated line encoding the task.
      * @throws BarryException If the task type is unknown and cannot be serialized.
      */
     public String taskToLine(Task task) throws BarryException {
+        String fields = serializeFields(task);
+        return task.getId() == 0 ? fields : task.getId() + FIELD_SEPARATOR + fields;
+    }
+
+    private String serializeFields(Task task) throws BarryException {
         String done = task.isDone() ? DONE_FLAG_TRUE : DONE_FLAG_FALSE;
 
         if (task instanceof ToDo todoTask) {
@@ -261,10 +697,6 @@ public class Storage {
         throw new BarryException(ERROR_UNKNOWN_TASK_TYPE_SAVE);
     }
 
-    private LocalDateTime parseSavedDateTime(String value) {
-        return LocalDateTime.parse(value, SAVE_DATE_TIME_FORMAT);
-    }
-
     private String serializeToDo(ToDo task, String done) {
         return TYPE_TODO + FIELD_SEPARATOR + done + FIELD_SEPARATOR + task.getName();
     }
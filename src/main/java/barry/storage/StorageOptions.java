@@ -0,0 +1,210 @@
+package barry.storage;
+
+/**
+ * Represents the configurable behaviour of {@link barry.storage.Storage}.
+ *
+ * <p>{@code StorageOptions} is immutable: each {@code with...} method returns an updated copy,
+ * so a single set of defaults can be shared and specialised safely.</p>
+ */
+public class StorageOptions {
+    private static final long DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES = 16L << 20;
+    private boolean isJournalEnabled;
+    private int compactionRecordThreshold;
+    private long compactionByteThreshold;
+    private long writeBehindIntervalMillis;
+    private int writeBehindMaxDirty;
+    private boolean isBinaryFormat;
+    private boolean isRecordFormat;
+    private boolean isIncrementalSave;
+    private long parallelLoadThresholdBytes;
+
+    private StorageOptions() {
+        this.isJournalEnabled = false;
+        this.compactionRecordThreshold = 0;
+        this.compactionByteThreshold = 0;
+        this.writeBehindIntervalMillis = 0;
+        this.writeBehindMaxDirty = 0;
+        this.isBinaryFormat = false;
+        this.isRecordFormat = false;
+        this.isIncrementalSave = false;
+        this.parallelLoadThresholdBytes = DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES;
+    }
+
+    private StorageOptions(StorageOptions other) {
+        this.isJournalEnabled = other.isJournalEnabled;
+        this.compactionRecordThreshold = other.compactionRecordThreshold;
+        this.compactionByteThreshold = other.compactionByteThreshold;
+        this.writeBehindIntervalMillis = other.writeBehindIntervalMillis;
+        this.writeBehindMaxDirty = other.writeBehindMaxDirty;
+        this.isBinaryFormat = other.isBinaryFormat;
+        this.isRecordFormat = other.isRecordFormat;
+        this.isIncrementalSave = other.isIncrementalSave;
+        this.parallelLoadThresholdBytes = other.parallelLoadThresholdBytes;
+    }
+
+    /**
+     * Returns the default options: every save rewrites the whole data file,
+     * and text data files of 16 MiB or more are decoded in parallel on load.
+     *
+     * @return Default storage options.
+     */
+    public static StorageOptions defaults() {
+        return new StorageOptions();
+    }
+
+    /**
+     * Returns a copy of these options with journaling turned on or off.
+     * When journaling is on, each save appends only the pending task list changes to a journal
+     * next to the data file instead of rewriting every task.
+     *
+     * @param isEnabled Whether mutations should be journaled.
+     * @return Updated storage options.
+     */
+    public StorageOptions withJournal(boolean isEnabled) {
+        StorageOptions copy = new StorageOptions(this);
+        copy.isJournalEnabled = isEnabled;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options that compacts the journal into a new snapshot once it holds
+     * at least {@code maxRecords} records or {@code maxBytes} bytes. A threshold of 0 is ignored.
+     * Compaction runs in the background and only applies when journaling is enabled.
+     *
+     * @param maxRecords Record count that triggers a compaction, or 0 to ignore record counts.
+     * @param maxBytes Journal size in bytes that triggers a compaction, or 0 to ignore sizes.
+     * @return Updated storage options.
+     */
+    public StorageOptions withCompactionThreshold(int maxRecords, long maxBytes) {
+        assert maxRecords >= 0 && maxBytes >= 0 : "compaction thresholds must not be negative";
+        StorageOptions copy = new StorageOptions(this);
+        copy.compactionRecordThreshold = maxRecords;
+        copy.compactionByteThreshold = maxBytes;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options that saves in the background instead of on every save request.
+     * Changes are flushed at most {@code intervalMillis} after they were made, or as soon as
+     * {@code maxDirty} save requests are pending, whichever comes first.
+     *
+     * @param intervalMillis Longest time a change may stay unsaved, in milliseconds.
+     * @param maxDirty Number of pending save requests that triggers an early flush.
+     * @return Updated storage options.
+     */
+    public StorageOptions withWriteBehind(long intervalMillis, int maxDirty) {
+        assert intervalMillis > 0 : "interval must be positive";
+        assert maxDirty > 0 : "maxDirty must be positive";
+        StorageOptions copy = new StorageOptions(this);
+        copy.writeBehindIntervalMillis = intervalMillis;
+        copy.writeBehindMaxDirty = maxDirty;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options that writes snapshots in the compact binary format instead of
+     * pipe-separated text. Existing text snapshots still load, and are migrated on the next full save.
+     *
+     * @param isEnabled Whether snapshots should be written in binary.
+     * @return Updated storage options.
+     */
+    public StorageOptions withBinaryFormat(boolean isEnabled) {
+        StorageOptions copy = new StorageOptions(this);
+        copy.isBinaryFormat = isEnabled;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options that keeps the data file as fixed-width records updated in place.
+     * Marks, unmarks and deletes then persist as single-byte writes, and adds as appends, so the journal
+     * is not used. This takes precedence over the binary format.
+     *
+     * @param isEnabled Whether the data file should be kept as in-place records.
+     * @return Updated storage options.
+     */
+    public StorageOptions withRecordFormat(boolean isEnabled) {
+        StorageOptions copy = new StorageOptions(this);
+        copy.isRecordFormat = isEnabled;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options that rewrites only the changed lines of a text data file on save,
+     * instead of the whole file: marks and unmarks overwrite their line in place, and adds and deletes rewrite
+     * the file from the first affected line onwards. The first save after loading still writes the whole file.
+     * This applies to text snapshots without a journal.
+     *
+     * @param isEnabled Whether saves should rewrite only changed lines.
+     * @return Updated storage options.
+     */
+    public StorageOptions withIncrementalSave(boolean isEnabled) {
+        StorageOptions copy = new StorageOptions(this);
+        copy.isIncrementalSave = isEnabled;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options that decodes text data files of at least {@code minBytes} bytes
+     * in parallel chunks on the common fork-join pool when loading. A threshold of 0 turns parallel loading off.
+     *
+     * @param minBytes Data file size in bytes from which loading runs in parallel, or 0 to always load sequentially.
+     * @return Updated storage options.
+     */
+    public StorageOptions withParallelLoadThreshold(long minBytes) {
+        assert minBytes >= 0 : "parallel load threshold must not be negative";
+        StorageOptions copy = new StorageOptions(this);
+        copy.parallelLoadThresholdBytes = minBytes;
+        return copy;
+    }
+
+    public boolean isJournalEnabled() {
+        return isJournalEnabled;
+    }
+
+    public boolean isBinaryFormat() {
+        return isBinaryFormat;
+    }
+
+    public boolean isRecordFormat() {
+        return isRecordFormat;
+    }
+
+    public boolean isIncrementalSave() {
+        return isIncrementalSave;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindIntervalMillis > 0;
+    }
+
+    public long getWriteBehindIntervalMillis() {
+        return writeBehindIntervalMillis;
+    }
+
+    public int getWriteBehindMaxDirty() {
+        return writeBehindMaxDirty;
+    }
+
+    /**
+     * Returns whether a text data file of the given size should be decoded in parallel.
+     *
+     * @param sizeBytes Size of the data file in bytes.
+     * @return true if parallel loading is on and the file reaches its threshold.
+     */
+    public boolean shouldLoadInParallel(long sizeBytes) {
+        return parallelLoadThresholdBytes > 0 && sizeBytes >= parallelLoadThresholdBytes;
+    }
+
+    /**
+     * Returns whether a journal of the given size is due for compaction.
+     *
+     * @param recordCount Number of records in the journal.
+     * @param sizeBytes Size of the journal in bytes.
+     * @return true if either configured threshold has been reached.
+     */
+    public boolean shouldCompact(int recordCount, long sizeBytes) {
+        boolean hasTooManyRecords = compactionRecordThreshold > 0 && recordCount >= compactionRecordThreshold;
+        boolean isTooLarge = compactionByteThreshold > 0 && sizeBytes >= compactionByteThreshold;
+        return isJournalEnabled && (hasTooManyRecords || isTooLarge);
+    }
+}
@@ -0,0 +1,141 @@
+package barry.storage;
+
+import barry.exception.BarryException;
+import barry.task.TaskList;
+
+/**
+ * Coalesces bursts of save requests into a single background flush.
+ *
+ * <p>Each save request only marks the task list dirty. A single daemon flusher persists the latest state
+ * once the oldest unsaved change is {@code intervalMillis} old, or as soon as {@code maxDirty} requests
+ * have piled up, whichever comes first. {@link #flush()} persists synchronously, e.g. on exit.</p>
+ */
+class WriteBehindSaver {
+    private static final String THREAD_NAME = "barry-write-behind";
+    private final long intervalMillis;
+    private final int maxDirty;
+    private final Flush flush;
+    private final Object flushLock = new Object();
+    private TaskList dirtyTasks;
+    private int dirtyCount = 0;
+    private Thread flusher;
+    private BarryException lastFailure;
+
+    /**
+     * Represents the action that actually persists a task list.
+     */
+    interface Flush {
+        void run(TaskList tasks) throws BarryException;
+    }
+
+    /**
+     * Constructs a write-behind saver.
+     *
+     * @param intervalMillis Longest time a change may stay unsaved, in milliseconds.
+     * @param maxDirty Number of save requests that triggers an early flush.
+     * @param flush Action that persists the task list.
+     */
+    WriteBehindSaver(long intervalMillis, int maxDirty, Flush flush) {
+        assert intervalMillis > 0 : "interval must be positive";
+        assert maxDirty > 0 : "maxDirty must be positive";
+        assert flush != null : "flush must not be null";
+        this.intervalMillis = intervalMillis;
+        this.maxDirty = maxDirty;
+        this.flush = flush;
+    }
+
+    /**
+     * Records that the given task list has unsaved changes.
+     * Reports, once, a failure from an earlier background flush.
+     *
+     * @param tasks The task list to persist on the next flush.
+     * @throws BarryException If the previous background flush failed.
+     */
+    synchronized void markDirty(TaskList tasks) throws BarryException {
+        assert tasks != null : "tasks must not be null";
+        dirtyTasks = tasks;
+        dirtyCount++;
+        startFlusherIfNeeded();
+        notifyAll();
+        BarryException failure = lastFailure;
+        lastFailure = null;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Persists any unsaved changes on the calling thread, waiting for an in-progress background flush first.
+     *
+     * @throws BarryException If persisting fails.
+     */
+    void flush() throws BarryException {
+        synchronized (flushLock) {
+            TaskList tasks = takeDirtyTasks();
+            if (tasks != null) {
+                flush.run(tasks);
+            }
+        }
+    }
+
+    private synchronized TaskList takeDirtyTasks() {
+        TaskList tasks = dirtyTasks;
+        dirtyTasks = null;
+        dirtyCount = 0;
+        return tasks;
+    }
+
+    private void startFlusherIfNeeded() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = new Thread(this::runFlusher, THREAD_NAME);
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly));
+    }
+
+    private void runFlusher() {
+        try {
+            while (true) {
+                awaitFlushDue();
+                flushQuietly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void awaitFlushDue() throws InterruptedException {
+        while (dirtyCount == 0) {
+            wait();
+        }
+        long deadline = System.currentTimeMillis() + intervalMillis;
+        long remaining = intervalMillis;
+        while (dirtyCount > 0 && dirtyCount < maxDirty && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+
+    private void flushQuietly() {
+        synchronized (flushLock) {
+            TaskList tasks = takeDirtyTasks();
+            if (tasks == null) {
+                return;
+            }
+            try {
+                flush.run(tasks);
+            } catch (BarryException e) {
+                // Keep the list dirty so the next flush retries, and surface the failure on the next save.
+                synchronized (this) {
+                    lastFailure = e;
+                    if (dirtyTasks == null) {
+                        dirtyTasks = tasks;
+                    }
+                    dirtyCount++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package barry.task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a task store that keeps its tasks in parallel primitive columns instead of one object per task.
+ *
+ * <p>Each task takes a type byte, its ID and two epoch-minute longs, an offset and a length into a shared arena
+ * holding every description in UTF-8, and a bit in the done set. {@link #get(int)} builds a fresh {@link ToDo},
+ * {@link Deadline} or {@link Event} from the columns on every call, so the returned task is a read-only view:
+ * marking it does not change the store.</p>
+ *
+ * <p>A snapshot shares the columns with the store. Additions only write past the snapshot's size, so they need
+ * no copy; a removal while a snapshot is out copies the columns first. Tasks with equal descriptions can share
+ * one range of the arena, and a range used by more than one task carries a count of its users, so that its bytes
+ * stop counting as live only when the last of them is removed. The arena is compacted once removed descriptions
+ * take up more of it than live ones.</p>
+ */
+class ColumnarTaskStore implements TaskStore {
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_ARENA_CAPACITY = 256;
+    private byte[] types;
+    private long[] ids;
+    private long[] froms;
+    private long[] tos;
+    private int[] nameStarts;
+    private int[] nameLengths;
+    private int[] ordinals;
+    private byte[] arena;
+    private int arenaUsed = 0;
+    private int liveBytes = 0;
+    // Number of users of each arena range that more than one task uses, by the start of the range.
+    private final Map<Integer, Integer> sharedRangeUsers = new HashMap<>();
+    private int snapshotArenaUsed = 0;
+    private BitSet done;
+    private int size = 0;
+    private boolean isShared = false;
+
+    ColumnarTaskStore(int expectedSize) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedSize);
+        this.types = new byte[capacity];
+        this.ids = new long[capacity];
+        this.froms = new long[capacity];
+        this.tos = new long[capacity];
+        this.nameStarts = new int[capacity];
+        this.nameLengths = new int[capacity];
+        this.ordinals = new int[capacity];
+        this.arena = new byte[INITIAL_ARENA_CAPACITY];
+        this.done = new BitSet(capacity);
+    }
+
+    /**
+     * Constructs a frozen copy of another store that shares its columns, for use as a snapshot.
+     */
+    private ColumnarTaskStore(ColumnarTaskStore other) {
+        this.types = other.types;
+        this.ids = other.ids;
+        this.froms = other.froms;
+        this.tos = other.tos;
+        this.nameStarts = other.nameStarts;
+        this.nameLengths = other.nameLengths;
+        this.ordinals = other.ordinals;
+        this.arena = other.arena;
+        this.arenaUsed = other.arenaUsed;
+        this.liveBytes = other.liveBytes;
+        this.done = other.done;
+        this.size = other.size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of arena bytes in use, live or not yet compacted away.
+     */
+    int arenaUsed() {
+        return arenaUsed;
+    }
+
+    @Override
+    public Task get(int index) {
+        String name = getName(index);
+        Task task;
+        switch (types[index]) {
+        case DEADLINE:
+            task = Deadline.ofEpochMinutes(name, froms[index]);
+            break;
+        case EVENT:
+            task = Event.ofEpochMinutes(name, froms[index], tos[index]);
+            break;
+        default:
+            task = new ToDo(name);
+            break;
+        }
+        task.assignId(ids[index]);
+        if (done.get(index)) {
+            task.mark();
+        }
+        task.joinList();
+        return task;
+    }
+
+    @Override
+    public String getName(int index) {
+        return new String(arena, nameStarts[index], nameLengths[index], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void add(Task task, int ordinal) {
+        assert size == 0 || ordinal > ordinals[size - 1] : "ordinals must grow along the list";
+        if (size == types.length) {
+            grow();
+        }
+        if (task instanceof Deadline deadline) {
+            types[size] = DEADLINE;
+            froms[size] = deadline.getByEpochMinutes();
+        } else if (task instanceof Event event) {
+            types[size] = EVENT;
+            froms[size] = event.getFromEpochMinutes();
+            tos[size] = event.getToEpochMinutes();
+        } else if (task instanceof ToDo) {
+            types[size] = TODO;
+        } else {
+            throw new IllegalArgumentException("Unsupported task type: " + task.getClass().getSimpleName());
+        }
+        ids[size] = task.getId();
+        appendName(size, task.getName());
+        done.set(size, task.isDone());
+        ordinals[size] = ordinal;
+        size++;
+    }
+
+    @Override
+    public int ordinalAt(int index) {
+        return ordinals[index];
+    }
+
+    @Override
+    public int positionOf(int ordinal) {
+        return Arrays.binarySearch(ordinals, 0, size, ordinal);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        assert index >= 0 && index < size : "index out of range";
+        done.set(index, isDone);
+    }
+
+    /**
+     * Points the task at the given position to the description range of another task. If no other task used its
+     * own range, that was the last one appended and no snapshot can see it, its bytes are handed back to the arena
+     * straight away.
+     */
+    @Override
+    public void shareName(int index, int sameAs) {
+        // Empty descriptions take no bytes, so there is nothing to share.
+        if (nameStarts[index] == nameStarts[sameAs] || nameLengths[index] == 0) {
+            return;
+        }
+        int start = nameStarts[index];
+        int length = nameLengths[index];
+        if (releaseName(index) && start + length == arenaUsed && start >= snapshotArenaUsed) {
+            arenaUsed -= length;
+        }
+        nameStarts[index] = nameStarts[sameAs];
+        retainRange(nameStarts[index]);
+    }
+
+    @Override
+    public long descriptionBytes() {
+        return TaskStore.align(TaskStore.ARRAY_HEADER_BYTES + arena.length)
+                + 2 * TaskStore.align(TaskStore.ARRAY_HEADER_BYTES + (long) Integer.BYTES * nameStarts.length);
+    }
+
+    @Override
+    public void removeAll(BitSet positions) {
+        ensureExclusiveColumns();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (positions.get(i)) {
+                releaseName(i);
+                continue;
+            }
+            types[kept] = types[i];
+            ids[kept] = ids[i];
+            froms[kept] = froms[i];
+            tos[kept] = tos[i];
+            nameStarts[kept] = nameStarts[i];
+            nameLengths[kept] = nameLengths[i];
+            ordinals[kept] = ordinals[i];
+            done.set(kept, done.get(i));
+            kept++;
+        }
+        done.clear(kept, size);
+        size = kept;
+        if (arenaUsed - liveBytes > liveBytes) {
+            compactArena();
+        }
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        isShared = true;
+        snapshotArenaUsed = arenaUsed;
+        ColumnarTaskStore frozen = new ColumnarTaskStore(this);
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return frozen.get(index);
+            }
+
+            @Override
+            public int size() {
+                return frozen.size;
+            }
+        };
+    }
+
+    private void appendName(int index, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (arenaUsed + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + bytes.length));
+        }
+        System.arraycopy(bytes, 0, arena, arenaUsed, bytes.length);
+        nameStarts[index] = arenaUsed;
+        nameLengths[index] = bytes.length;
+        arenaUsed += bytes.length;
+        liveBytes += bytes.length;
+    }
+
+    /**
+     * Records that one more task uses the range starting at the given offset, besides the one already using it.
+     */
+    private void retainRange(int start) {
+        sharedRangeUsers.put(start, sharedRangeUsers.getOrDefault(start, 1) + 1);
+    }
+
+    /**
+     * Records that the task at the given position no longer uses its description range, and stops counting the
+     * range as live if no other task uses it.
+     *
+     * @return Whether the task was the last user of the range.
+     */
+    private boolean releaseName(int index) {
+        if (nameLengths[index] == 0) {
+            return false;
+        }
+        Integer users = sharedRangeUsers.get(nameStarts[index]);
+        if (users == null) {
+            liveBytes -= nameLengths[index];
+            return true;
+        }
+        if (users == 2) {
+            sharedRangeUsers.remove(nameStarts[index]);
+        } else {
+            sharedRangeUsers.put(nameStarts[index], users - 1);
+        }
+        return false;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        froms = Arrays.copyOf(froms, capacity);
+        tos = Arrays.copyOf(tos, capacity);
+        nameStarts = Arrays.copyOf(nameStarts, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        ordinals = Arrays.copyOf(ordinals, capacity);
+    }
+
+    /**
+     * Copies the columns that a removal rewrites if a snapshot may still be reading them.
+     */
+    private void ensureExclusiveColumns() {
+        if (!isShared) {
+            return;
+        }
+        types = types.clone();
+        ids = ids.clone();
+        froms = froms.clone();
+        tos = tos.clone();
+        nameStarts = nameStarts.clone();
+        nameLengths = nameLengths.clone();
+        done = (BitSet) done.clone();
+        isShared = false;
+    }
+
+    /**
+     * Moves the live descriptions into a new arena, dropping those of removed tasks and keeping shared ranges
+     * shared. A new array is used because a snapshot may still read the old one.
+     */
+    private void compactArena() {
+        assert liveBytes >= 0 : "live bytes must not be negative";
+        byte[] compacted = new byte[Math.max(INITIAL_ARENA_CAPACITY, liveBytes * 2)];
+        Map<Integer, Integer> movedStarts = new HashMap<>();
+        sharedRangeUsers.clear();
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            // An empty description may start where the next one does, so it must not claim that start.
+            if (nameLengths[i] == 0) {
+                nameStarts[i] = 0;
+                continue;
+            }
+            Integer moved = movedStarts.get(nameStarts[i]);
+            if (moved == null) {
+                System.arraycopy(arena, nameStarts[i], compacted, used, nameLengths[i]);
+                movedStarts.put(nameStarts[i], used);
+                moved = used;
+                used += nameLengths[i];
+            } else {
+                retainRange(moved);
+            }
+            nameStarts[i] = moved;
+        }
+        arena = compacted;
+        arenaUsed = used;
+        liveBytes = used;
+        snapshotArenaUsed = 0;
+    }
+}
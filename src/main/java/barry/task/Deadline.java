@@ -6,44 +6,60 @@ import java.time.format.DateTimeFormatter;
 /**
  * Represents a deadline task that must be completed by a specific date/time.
  *
- * <p>A {@code Deadline} extends {@code Task} by storing a {@link java.time.LocalDateTime} indicating
- * when the task is due.</p>
+ * <p>A {@code Deadline} extends {@code Task} by storing when the task is due. The due time is kept as minutes
+ * since 1970-01-01T00:00, the precision that the parser and the data files support, and a
+ * {@link java.time.LocalDateTime} is only created when {@link #getBy()} is called.</p>
  */
 public class Deadline extends Task {
     private static final DateTimeFormatter FORMAT_OUT = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
     private static final String TASK_TYPE_ICON = "[D]";
     private static final String LABEL_BY_PREFIX = " (by: ";
     private static final String LABEL_END = ")";
-    private final LocalDateTime deadline;
+    private final long deadline;
 
     /**
-     * Constructs a deadline task.
+     * Constructs a deadline task. Seconds and finer fields of the deadline are dropped.
      *
      * @param name Task description.
      * @param deadline Deadline date/time.
      */
     public Deadline(String name, LocalDateTime deadline) {
+        this(name, EpochMinutes.of(deadline));
+    }
+
+    private Deadline(String name, long deadline) {
         super(name);
-        assert deadline != null : "deadline must not be null";
         this.deadline = deadline;
     }
 
+    /**
+     * Returns a deadline task due at the given minute.
+     *
+     * @param name Task description.
+     * @param deadline Deadline in minutes since 1970-01-01T00:00.
+     * @return The deadline task.
+     */
+    public static Deadline ofEpochMinutes(String name, long deadline) {
+        return new Deadline(name, deadline);
+    }
+
     public LocalDateTime getBy() {
+        return EpochMinutes.toDateTime(this.deadline);
+    }
+
+    public long getByEpochMinutes() {
         return this.deadline;
     }
 
     @Override
-    public boolean hasSameDetails(Task other) {
-        if (!(other instanceof Deadline otherDeadline)) {
-            return false;
-        }
-        return super.hasSameDetails(other) && deadline.equals(otherDeadline.deadline);
+    public TaskDetails getDetails() {
+        return new TaskDetails(this.getClass(), getName(), deadline, 0);
     }
 
     @Override
     public String toString() {
         return TASK_TYPE_ICON + super.toString()
-                + LABEL_BY_PREFIX + formatDeadline(deadline) + LABEL_END;
+                + LABEL_BY_PREFIX + formatDeadline(getBy()) + LABEL_END;
     }
 
     private static String formatDeadline(LocalDateTime deadline) {
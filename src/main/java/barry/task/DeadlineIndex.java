@@ -0,0 +1,84 @@
+package barry.task;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Represents the due times of the deadlines in a task list, in ascending order, each tagged with the ordinal of
+ * its task. Range and ordered queries take logarithmic time plus the number of deadlines they return.
+ */
+class DeadlineIndex {
+    private final NavigableSet<Entry> entries = new TreeSet<>();
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long time;
+        private final int ordinal;
+
+        private Entry(long time, int ordinal) {
+            this.time = time;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Integer.compare(ordinal, other.ordinal);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry entry && compareTo(entry) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(time) * 31 + ordinal;
+        }
+    }
+
+    void add(long time, int ordinal) {
+        entries.add(new Entry(time, ordinal));
+    }
+
+    void remove(long time, int ordinal) {
+        entries.remove(new Entry(time, ordinal));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Passes the ordinals of the deadlines due in {@code [from, to)} to the consumer, earliest first.
+     *
+     * @param from Start of the range, inclusive.
+     * @param to End of the range, exclusive.
+     * @param consumer Receives the ordinals.
+     */
+    void forEachBetween(long from, long to, IntConsumer consumer) {
+        if (from >= to) {
+            return;
+        }
+        for (Entry entry : entries.subSet(new Entry(from, Integer.MIN_VALUE), true,
+                new Entry(to, Integer.MIN_VALUE), false)) {
+            consumer.accept(entry.ordinal);
+        }
+    }
+
+    /**
+     * Passes the ordinals of the deadlines due at or after {@code from} to the visitor, earliest first, until the
+     * visitor returns false.
+     *
+     * @param from Earliest due time to visit.
+     * @param visitor Receives the ordinals and returns whether to continue.
+     */
+    void forEachFrom(long from, IntPredicate visitor) {
+        for (Entry entry : entries.tailSet(new Entry(from, Integer.MIN_VALUE), true)) {
+            if (!visitor.test(entry.ordinal)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package barry.task;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Represents the done flags of the tasks in a list as a bitset indexed by position.
+ *
+ * <p>Unlike {@link BitSet}, a flag can be inserted or removed in the middle. The flags after it then move along a
+ * whole 64-bit word at a time, so the set stays aligned with the positions of the tasks as they are removed or put
+ * back. Counting the set flags takes O(n/64) time, and {@link #nextSetBit(int)} and {@link #nextClearBit(int)}
+ * skip whole words that hold no match, so walking the done or pending tasks costs little more than the output.</p>
+ *
+ * <p>Flags at or past {@link #size()} are always clear.</p>
+ */
+class DoneFlags {
+    private static final int ADDRESS_BITS = 6;
+    private static final int WORD_BITS = 1 << ADDRESS_BITS;
+    private long[] words = new long[1];
+    private int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    boolean get(int index) {
+        assert index >= 0 && index < size : "index out of range";
+        return (words[index >>> ADDRESS_BITS] & (1L << index)) != 0;
+    }
+
+    void set(int index, boolean isDone) {
+        assert index >= 0 && index < size : "index out of range";
+        if (isDone) {
+            words[index >>> ADDRESS_BITS] |= 1L << index;
+        } else {
+            words[index >>> ADDRESS_BITS] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Inserts a flag at the given position, moving the flags at and after it one position up.
+     *
+     * @param index Position of the new flag, at most {@link #size()}.
+     * @param isDone Value of the new flag.
+     */
+    void insert(int index, boolean isDone) {
+        assert index >= 0 && index <= size : "index out of range";
+        int lastWord = size >>> ADDRESS_BITS;
+        if (lastWord == words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        int firstWord = index >>> ADDRESS_BITS;
+        for (int w = lastWord; w > firstWord; w--) {
+            words[w] = (words[w] << 1) | (words[w - 1] >>> (WORD_BITS - 1));
+        }
+        long below = words[firstWord] & lowBits(index & (WORD_BITS - 1));
+        words[firstWord] = below | ((words[firstWord] & ~below) << 1);
+        size++;
+        set(index, isDone);
+    }
+
+    /**
+     * Removes the flags at the given positions in a single pass, closing the gaps. Each run of kept flags is
+     * copied a word at a time.
+     *
+     * @param positions Set bits are the positions to remove.
+     */
+    void removeAll(BitSet positions) {
+        assert positions.length() <= size : "index out of range";
+        long[] kept = new long[words.length];
+        int keptSize = 0;
+        int from = 0;
+        while (from < size) {
+            int removed = positions.nextSetBit(from);
+            int to = removed < 0 ? size : removed;
+            keptSize = copyRange(kept, keptSize, from, to);
+            from = removed < 0 ? size : positions.nextClearBit(removed);
+        }
+        words = kept;
+        size = keptSize;
+    }
+
+    /**
+     * Returns the number of set flags.
+     */
+    int cardinality() {
+        int count = 0;
+        int wordCount = (size + WORD_BITS - 1) >>> ADDRESS_BITS;
+        for (int w = 0; w < wordCount; w++) {
+            count += Long.bitCount(words[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the first position at or after {@code from} whose flag is set, or -1 if there is none.
+     */
+    int nextSetBit(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int w = from >>> ADDRESS_BITS;
+        long word = words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w >= words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+        // Flags past the size are clear, so a set flag is always in range.
+        return (w << ADDRESS_BITS) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the first position at or after {@code from} whose flag is clear, or -1 if there is none before
+     * {@link #size()}.
+     */
+    int nextClearBit(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int w = from >>> ADDRESS_BITS;
+        long word = ~words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w >= words.length) {
+                return -1;
+            }
+            word = ~words[w];
+        }
+        int position = (w << ADDRESS_BITS) + Long.numberOfTrailingZeros(word);
+        return position < size ? position : -1;
+    }
+
+    /**
+     * Appends the flags in {@code [from, to)} to a zeroed array that holds {@code targetSize} flags so far.
+     *
+     * @return The number of flags the target holds afterwards.
+     */
+    private int copyRange(long[] target, int targetSize, int from, int to) {
+        int at = targetSize;
+        for (int start = from; start < to; start += WORD_BITS) {
+            int count = Math.min(WORD_BITS, to - start);
+            long bits = readBits(start) & lowBits(count);
+            int w = at >>> ADDRESS_BITS;
+            int offset = at & (WORD_BITS - 1);
+            target[w] |= bits << offset;
+            if (offset + count > WORD_BITS) {
+                target[w + 1] |= bits >>> (WORD_BITS - offset);
+            }
+            at += count;
+        }
+        return at;
+    }
+
+    /**
+     * Returns the 64 flags starting at the given position, the first in the lowest bit.
+     */
+    private long readBits(int from) {
+        int w = from >>> ADDRESS_BITS;
+        int offset = from & (WORD_BITS - 1);
+        long bits = words[w] >>> offset;
+        if (offset != 0 && w + 1 < words.length) {
+            bits |= words[w + 1] << (WORD_BITS - offset);
+        }
+        return bits;
+    }
+
+    /**
+     * Returns a mask of the lowest {@code count} bits, for {@code count} from 0 to 64.
+     */
+    private static long lowBits(int count) {
+        return count == WORD_BITS ? -1L : (1L << count) - 1;
+    }
+}
@@ -0,0 +1,23 @@
+package barry.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Converts between date/times and the number of minutes since 1970-01-01T00:00, the minute precision that the
+ * parser and the data files support.
+ */
+final class EpochMinutes {
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private EpochMinutes() {
+    }
+
+    static long of(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_MINUTE);
+    }
+
+    static LocalDateTime toDateTime(long epochMinutes) {
+        return LocalDateTime.ofEpochSecond(epochMinutes * SECONDS_PER_MINUTE, 0, ZoneOffset.UTC);
+    }
+}
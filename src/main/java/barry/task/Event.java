@@ -6,8 +6,9 @@ import java.time.format.DateTimeFormatter;
 /**
  * Represents an event task that occurs over a time range.
  *
- * <p>An {@code Event} extends {@code Task} by storing a start and end {@link java.time.LocalDateTime},
- * representing the time interval during which the event occurs.</p>
+ * <p>An {@code Event} extends {@code Task} by storing a start and end time, representing the time interval
+ * during which the event occurs. Both are kept as minutes since 1970-01-01T00:00, and a
+ * {@link java.time.LocalDateTime} is only created when {@link #getFrom()} or {@link #getTo()} is called.</p>
  */
 public class Event extends Task {
     private static final DateTimeFormatter FORMAT_OUT = DateTimeFormatter
@@ -16,47 +17,64 @@ public class Event extends Task {
     private static final String LABEL_FROM_PREFIX = " (from: ";
     private static final String LABEL_TO_PREFIX = " to: ";
     private static final String LABEL_END = ")";
-    private final LocalDateTime start;
-    private final LocalDateTime end;
+    private final long start;
+    private final long end;
 
     /**
-     * Constructs an event task.
+     * Constructs an event task. Seconds and finer fields of the start and end are dropped.
      *
      * @param name Event description.
      * @param start Start date/time.
      * @param end End date/time.
      */
     public Event(String name, LocalDateTime start, LocalDateTime end) {
+        this(name, EpochMinutes.of(start), EpochMinutes.of(end));
+    }
+
+    private Event(String name, long start, long end) {
         super(name);
-        assert start != null : "start must not be null";
-        assert end != null : "end must not be null";
         this.start = start;
         this.end = end;
     }
 
+    /**
+     * Returns an event task that takes place between the given minutes.
+     *
+     * @param name Event description.
+     * @param start Start in minutes since 1970-01-01T00:00.
+     * @param end End in minutes since 1970-01-01T00:00.
+     * @return The event task.
+     */
+    public static Event ofEpochMinutes(String name, long start, long end) {
+        return new Event(name, start, end);
+    }
+
     public LocalDateTime getFrom() {
-        return this.start;
+        return EpochMinutes.toDateTime(this.start);
     }
 
     public LocalDateTime getTo() {
+        return EpochMinutes.toDateTime(this.end);
+    }
+
+    public long getFromEpochMinutes() {
+        return this.start;
+    }
+
+    public long getToEpochMinutes() {
         return this.end;
     }
 
     @Override
-    public boolean hasSameDetails(Task other) {
-        if (!(other instanceof Event otherEvent)) {
-            return false;
-        }
-        return super.hasSameDetails(other)
-                && start.equals(otherEvent.start)
-                && end.equals(otherEvent.end);
+    public TaskDetails getDetails() {
+        return new TaskDetails(this.getClass(), getName(), start, end);
     }
 
     @Override
     public String toString() {
         return TASK_TYPE_ICON + super.toString()
-                + LABEL_FROM_PREFIX + formatEventTime(start)
-                + LABEL_TO_PREFIX + formatEventTime(end)
+                + LABEL_FROM_PREFIX + formatEventTime(getFrom())
+                + LABEL_TO_PREFIX + formatEventTime(getTo())
                 + LABEL_END;
     }
 
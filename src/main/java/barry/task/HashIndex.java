@@ -0,0 +1,91 @@
+package barry.task;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Represents a hash table from a hash of some property of the tasks in a list, such as their details, to their
+ * ordinals. It is used to find a task equal to another in that property.
+ *
+ * <p>The table stores only the hash and the ordinal, two ints in open-addressed arrays, rather than the property
+ * itself, e.g. a {@link TaskDetails} object per task. A lookup therefore has to confirm each ordinal with a
+ * matching hash against the task itself. Removed tasks are not taken out; the caller skips their ordinals and
+ * clears the table when it renumbers the tasks.</p>
+ */
+class HashIndex {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 32;
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] ordinals = newSlots(INITIAL_CAPACITY);
+    private int used = 0;
+
+    /**
+     * Adds a task to the table.
+     *
+     * @param hash Hash of the property.
+     * @param ordinal Ordinal of the task.
+     */
+    void add(int hash, int ordinal) {
+        if (2 * (used + 1) > ordinals.length) {
+            resize();
+        }
+        insert(hash, ordinal);
+        used++;
+    }
+
+    /**
+     * Returns the first ordinal added with the given hash that passes the check.
+     *
+     * @param hash Hash of the property to look for.
+     * @param isSame Returns whether the task with a given ordinal is live and has the property looked for.
+     * @return The ordinal found, or a negative number if no ordinal passes the check.
+     */
+    int find(int hash, IntPredicate isSame) {
+        int mask = ordinals.length - 1;
+        for (int slot = mix(hash) & mask; ordinals[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && isSame.test(ordinals[slot])) {
+                return ordinals[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    void clear() {
+        hashes = new int[INITIAL_CAPACITY];
+        ordinals = newSlots(INITIAL_CAPACITY);
+        used = 0;
+    }
+
+    private void insert(int hash, int ordinal) {
+        int mask = ordinals.length - 1;
+        int slot = mix(hash) & mask;
+        while (ordinals[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        ordinals[slot] = ordinal;
+    }
+
+    private void resize() {
+        int[] oldHashes = hashes;
+        int[] oldOrdinals = ordinals;
+        hashes = new int[oldOrdinals.length * 2];
+        ordinals = newSlots(oldOrdinals.length * 2);
+        for (int slot = 0; slot < oldOrdinals.length; slot++) {
+            if (oldOrdinals[slot] != EMPTY) {
+                insert(oldHashes[slot], oldOrdinals[slot]);
+            }
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int mix(int value) {
+        int mixed = value * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+}
@@ -0,0 +1,91 @@
+package barry.task;
+
+import java.util.Arrays;
+
+/**
+ * Represents a hash table from task IDs to the ordinals of the tasks in a list, so that a task can be found by
+ * its ID in constant expected time.
+ *
+ * <p>IDs and ordinals are kept in two open-addressed primitive arrays, a long and an int per slot, rather than
+ * as boxed keys and values. As with {@link HashIndex}, removed tasks are not taken out: an ordinal stays valid
+ * for as long as the task exists, so the caller skips ordinals of removed tasks and clears the table when it
+ * rebuilds its indexes.</p>
+ */
+class IdIndex {
+    private static final long EMPTY = 0;
+    private static final int NOT_FOUND = -1;
+    private static final int INITIAL_CAPACITY = 32;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] ordinals = new int[INITIAL_CAPACITY];
+    private int used = 0;
+
+    /**
+     * Maps an ID to the ordinal of its task, replacing any ordinal the ID was mapped to before.
+     *
+     * @param id Positive ID of the task.
+     * @param ordinal Ordinal of the task.
+     */
+    void put(long id, int ordinal) {
+        assert id != EMPTY : "id must be assigned";
+        if (2 * (used + 1) > ids.length) {
+            resize();
+        }
+        if (insert(id, ordinal)) {
+            used++;
+        }
+    }
+
+    /**
+     * Returns the ordinal the given ID was last mapped to.
+     *
+     * @param id ID to look for.
+     * @return The ordinal, or a negative number if the ID was never mapped.
+     */
+    int get(long id) {
+        int mask = ids.length - 1;
+        for (int slot = mix(id) & mask; ids[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return ordinals[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    void clear() {
+        ids = new long[INITIAL_CAPACITY];
+        ordinals = new int[INITIAL_CAPACITY];
+        used = 0;
+    }
+
+    /**
+     * Stores the mapping, and returns whether it took a new slot rather than replacing an existing mapping.
+     */
+    private boolean insert(long id, int ordinal) {
+        int mask = ids.length - 1;
+        int slot = mix(id) & mask;
+        while (ids[slot] != EMPTY && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        boolean isNew = ids[slot] == EMPTY;
+        ids[slot] = id;
+        ordinals[slot] = ordinal;
+        return isNew;
+    }
+
+    private void resize() {
+        long[] oldIds = ids;
+        int[] oldOrdinals = ordinals;
+        ids = new long[oldIds.length * 2];
+        ordinals = new int[oldIds.length * 2];
+        for (int slot = 0; slot < oldIds.length; slot++) {
+            if (oldIds[slot] != EMPTY) {
+                insert(oldIds[slot], oldOrdinals[slot]);
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
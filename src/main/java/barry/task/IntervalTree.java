@@ -0,0 +1,199 @@
+package barry.task;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Represents a set of half-open time intervals {@code [start, end)}, each tagged with the ordinal of the task it
+ * belongs to, that can be searched for the intervals overlapping a query interval.
+ *
+ * <p>The intervals are kept in a treap ordered by start (ties broken by ordinal), and every node also records
+ * the latest end in its subtree. A search skips every subtree whose latest end is not after the query start and
+ * every right subtree of a node that starts at or after the query end, so every node it visits lies on the path
+ * to an interval it reports or to the query bounds: the cost follows the number of overlaps, not the size of the
+ * tree. Priorities are derived from the ordinal by a bit mixer, which keeps the tree balanced in expectation
+ * however the intervals arrive.</p>
+ */
+class IntervalTree {
+    private Node root;
+    private int size = 0;
+
+    private static final class Node {
+        private final long start;
+        private final long end;
+        private final int ordinal;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, int ordinal) {
+            this.start = start;
+            this.end = end;
+            this.ordinal = ordinal;
+            this.priority = mix(ordinal);
+            this.maxEnd = end;
+        }
+
+        private int compareTo(long otherStart, int otherOrdinal) {
+            int byStart = Long.compare(start, otherStart);
+            return byStart != 0 ? byStart : Integer.compare(ordinal, otherOrdinal);
+        }
+
+        private void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds an interval.
+     *
+     * @param start Start of the interval, inclusive.
+     * @param end End of the interval, exclusive.
+     * @param ordinal Ordinal of the task; no other interval with the same start may carry it.
+     */
+    void insert(long start, long end, int ordinal) {
+        root = insert(root, new Node(start, end, ordinal));
+        size++;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.compareTo(node.start, node.ordinal) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Removes the interval with the given start and ordinal, if there is one.
+     *
+     * @param start Start of the interval.
+     * @param ordinal Ordinal of the task.
+     */
+    void remove(long start, int ordinal) {
+        root = remove(root, start, ordinal);
+    }
+
+    private Node remove(Node node, long start, int ordinal) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = node.compareTo(start, ordinal);
+        if (comparison > 0) {
+            node.left = remove(node.left, start, ordinal);
+        } else if (comparison < 0) {
+            node.right = remove(node.right, start, ordinal);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Passes the ordinal of every interval that overlaps {@code [from, to)} to the consumer, in ascending order
+     * of start. Intervals that only touch the query at an endpoint do not overlap it.
+     *
+     * @param from Start of the query, inclusive.
+     * @param to End of the query, exclusive.
+     * @param consumer Receives the ordinals.
+     */
+    void forEachOverlapping(long from, long to, IntConsumer consumer) {
+        forEachOverlapping(root, from, to, consumer);
+    }
+
+    private static void forEachOverlapping(Node node, long from, long to, IntConsumer consumer) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        forEachOverlapping(node.left, from, to, consumer);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end > from) {
+            consumer.accept(node.ordinal);
+        }
+        forEachOverlapping(node.right, from, to, consumer);
+    }
+
+    /**
+     * Passes the ordinal of every interval to the consumer, in ascending order of start.
+     *
+     * @param consumer Receives the ordinals.
+     */
+    void forEachInOrder(IntConsumer consumer) {
+        forEachOverlapping(root, Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Joins two treaps where every interval of the first precedes every interval of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.update();
+        return second;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    static int mix(int value) {
+        int mixed = value * 0x9E3779B9;
+        mixed ^= mixed >>> 16;
+        mixed *= 0x85EBCA6B;
+        return mixed ^ (mixed >>> 13);
+    }
+}
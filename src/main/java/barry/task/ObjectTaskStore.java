@@ -0,0 +1,121 @@
+package barry.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents a task store that keeps every task as its own object in an array list.
+ * Taking a snapshot is O(1); the next structural change then copies the list instead of modifying it in place.
+ */
+class ObjectTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private ArrayList<Task> tasks;
+    private int[] ordinals;
+    private boolean isShared = false;
+
+    ObjectTaskStore(int expectedSize) {
+        this.tasks = new ArrayList<>(expectedSize);
+        this.ordinals = new int[Math.max(INITIAL_CAPACITY, expectedSize)];
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index);
+    }
+
+    @Override
+    public String getName(int index) {
+        return tasks.get(index).getName();
+    }
+
+    @Override
+    public void add(Task task, int ordinal) {
+        assert tasks.isEmpty() || ordinal > ordinals[tasks.size() - 1] : "ordinals must grow along the list";
+        ensureExclusiveTasks();
+        if (tasks.size() == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+        }
+        ordinals[tasks.size()] = ordinal;
+        tasks.add(task);
+    }
+
+    @Override
+    public int ordinalAt(int index) {
+        return ordinals[index];
+    }
+
+    @Override
+    public int positionOf(int ordinal) {
+        return Arrays.binarySearch(ordinals, 0, tasks.size(), ordinal);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        if (isDone) {
+            tasks.get(index).mark();
+        } else {
+            tasks.get(index).unmark();
+        }
+    }
+
+    @Override
+    public void shareName(int index, int sameAs) {
+        tasks.get(index).shareName(tasks.get(sameAs).getName());
+    }
+
+    @Override
+    public long descriptionBytes() {
+        Set<String> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (Task task : tasks) {
+            if (counted.add(task.getName())) {
+                bytes += TaskStore.sizeOfString(task.getName());
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void removeAll(BitSet positions) {
+        if (positions.cardinality() == 1) {
+            int index = positions.nextSetBit(0);
+            ensureExclusiveTasks();
+            tasks.remove(index);
+            System.arraycopy(ordinals, index + 1, ordinals, index, tasks.size() - index);
+            return;
+        }
+        // The old list may still be shared with a snapshot, so the survivors go into a new one.
+        ArrayList<Task> remaining = new ArrayList<>(tasks.size() - positions.cardinality());
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!positions.get(i)) {
+                ordinals[remaining.size()] = ordinals[i];
+                remaining.add(tasks.get(i));
+            }
+        }
+        tasks = remaining;
+        isShared = false;
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        isShared = true;
+        return Collections.unmodifiableList(tasks);
+    }
+
+    private void ensureExclusiveTasks() {
+        if (isShared) {
+            tasks = new ArrayList<>(tasks);
+            isShared = false;
+        }
+    }
+}
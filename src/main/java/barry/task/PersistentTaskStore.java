@@ -0,0 +1,355 @@
+package barry.task;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Represents a task store in which every change produces a new version that shares all but O(log n) of its nodes
+ * with the previous one, so that earlier versions can be kept cheaply and restored later.
+ *
+ * <p>The tasks are the nodes of an immutable treap ordered by position. Ordinals grow along the list, so the
+ * treap is also a search tree on ordinals, and priorities are derived from the ordinal by the same bit mixer as in
+ * {@link IntervalTree}. The shape of a version therefore depends only on which tasks it holds, not on the changes
+ * that led to it: two versions that differ in a few tasks share the rest of their nodes, which lets
+ * {@link #diff(Node, Node, DiffVisitor)} find those tasks without visiting the others. Reading, appending,
+ * replacing and removing a task each take O(log n) time and allocate O(log n) nodes.</p>
+ *
+ * <p>Tasks are shared between versions, so the store never marks one in place: {@link #setDone(int, boolean)}
+ * replaces the task with a marked or unmarked copy.</p>
+ */
+class PersistentTaskStore implements TaskStore {
+    private Node root;
+
+    /**
+     * Represents a node of the treap, and through the root node a whole version of the store.
+     */
+    static final class Node {
+        private final Task task;
+        private final int ordinal;
+        private final int size;
+        private final Node left;
+        private final Node right;
+
+        private Node(Task task, int ordinal, Node left, Node right) {
+            this.task = task;
+            this.ordinal = ordinal;
+            this.size = sizeOf(left) + 1 + sizeOf(right);
+            this.left = left;
+            this.right = right;
+        }
+
+        private Node withChildren(Node newLeft, Node newRight) {
+            return new Node(task, ordinal, newLeft, newRight);
+        }
+    }
+
+    /**
+     * Receives the tasks that differ between two versions, in ascending order of ordinal.
+     */
+    interface DiffVisitor {
+        void removed(Task task, int ordinal);
+
+        void added(Task task, int ordinal);
+
+        void replaced(Task oldTask, Task newTask, int ordinal);
+    }
+
+    Node current() {
+        return root;
+    }
+
+    void restore(Node version) {
+        root = version;
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public Task get(int index) {
+        return nodeAt(root, index).task;
+    }
+
+    @Override
+    public String getName(int index) {
+        return get(index).getName();
+    }
+
+    @Override
+    public void add(Task task, int ordinal) {
+        assert root == null || ordinal > nodeAt(root, root.size - 1).ordinal : "ordinals must grow along the list";
+        root = append(root, new Node(task, ordinal, null, null));
+    }
+
+    @Override
+    public int ordinalAt(int index) {
+        return nodeAt(root, index).ordinal;
+    }
+
+    @Override
+    public int positionOf(int ordinal) {
+        return positionOf(root, ordinal);
+    }
+
+    /**
+     * Returns the 0-based position of the task with the given ordinal in a version, or -1 if the version does not
+     * hold it.
+     *
+     * @param version Root of the version to search.
+     * @param ordinal Ordinal of the task.
+     * @return Position of the task, or -1.
+     */
+    static int positionOf(Node version, int ordinal) {
+        int position = 0;
+        Node node = version;
+        while (node != null) {
+            if (ordinal < node.ordinal) {
+                node = node.left;
+            } else if (ordinal > node.ordinal) {
+                position += sizeOf(node.left) + 1;
+                node = node.right;
+            } else {
+                return position + sizeOf(node.left);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        Task task = get(index);
+        if (task.isDone() != isDone) {
+            root = replace(root, index, withDone(task, isDone));
+        }
+    }
+
+    /**
+     * Gives the task at the given position the description string of another task. This is the one change made
+     * to a task in place: older versions holding the task see an equal description either way.
+     */
+    @Override
+    public void shareName(int index, int sameAs) {
+        get(index).shareName(getName(sameAs));
+    }
+
+    @Override
+    public long descriptionBytes() {
+        Set<String> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] bytes = {0};
+        forEach(root, node -> {
+            if (counted.add(node.task.getName())) {
+                bytes[0] += TaskStore.sizeOfString(node.task.getName());
+            }
+        });
+        return bytes[0];
+    }
+
+    @Override
+    public void removeAll(BitSet positions) {
+        assert positions.length() <= size() : "index out of range";
+        for (int i = positions.length() - 1; i >= 0; i = positions.previousSetBit(i - 1)) {
+            root = remove(root, i);
+        }
+    }
+
+    /**
+     * Returns a view of the current version. Versions never change, so the view is frozen entirely, done state
+     * included.
+     */
+    @Override
+    public List<Task> snapshot() {
+        Node version = root;
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return nodeAt(version, index).task;
+            }
+
+            @Override
+            public int size() {
+                return sizeOf(version);
+            }
+        };
+    }
+
+    /**
+     * Reports the tasks that are only in the first version, those only in the second, and those whose ordinal is
+     * in both but whose task was replaced. Subtrees the two versions share are skipped, so the cost follows the
+     * number of differences rather than the size of the versions.
+     *
+     * @param from Root of the first version.
+     * @param to Root of the second version.
+     * @param visitor Receives the differences.
+     */
+    static void diff(Node from, Node to, DiffVisitor visitor) {
+        if (from == to) {
+            return;
+        }
+        if (from == null) {
+            forEach(to, node -> visitor.added(node.task, node.ordinal));
+            return;
+        }
+        if (to == null) {
+            forEach(from, node -> visitor.removed(node.task, node.ordinal));
+            return;
+        }
+        // The node with the higher priority is the root of both versions' tasks together, so the other version
+        // is split around its ordinal and each side compared with the matching subtree.
+        if (priority(from.ordinal) >= priority(to.ordinal)) {
+            Node[] parts = split(to, from.ordinal);
+            diff(from.left, parts[0], visitor);
+            if (parts[1] == null) {
+                visitor.removed(from.task, from.ordinal);
+            } else if (parts[1].task != from.task) {
+                visitor.replaced(from.task, parts[1].task, from.ordinal);
+            }
+            diff(from.right, parts[2], visitor);
+        } else {
+            Node[] parts = split(from, to.ordinal);
+            diff(parts[0], to.left, visitor);
+            if (parts[1] == null) {
+                visitor.added(to.task, to.ordinal);
+            } else if (parts[1].task != to.task) {
+                visitor.replaced(parts[1].task, to.task, to.ordinal);
+            }
+            diff(parts[2], to.right, visitor);
+        }
+    }
+
+    /**
+     * Splits a treap into the nodes with smaller ordinals, the node with the given ordinal if there is one, and
+     * the nodes with greater ordinals.
+     */
+    private static Node[] split(Node node, int ordinal) {
+        if (node == null) {
+            return new Node[3];
+        }
+        if (ordinal == node.ordinal) {
+            return new Node[] {node.left, node, node.right};
+        }
+        if (ordinal < node.ordinal) {
+            Node[] parts = split(node.left, ordinal);
+            parts[2] = node.withChildren(parts[2], node.right);
+            return parts;
+        }
+        Node[] parts = split(node.right, ordinal);
+        parts[0] = node.withChildren(node.left, parts[0]);
+        return parts;
+    }
+
+    private static Node nodeAt(Node version, int index) {
+        if (index < 0 || index >= sizeOf(version)) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + sizeOf(version));
+        }
+        Node node = version;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Adds a node whose ordinal is greater than every other in the treap. It belongs on the right spine, above
+     * the first node there with a lower priority.
+     */
+    private static Node append(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (priority(added.ordinal) > priority(node.ordinal)) {
+            return added.withChildren(node, null);
+        }
+        return node.withChildren(node.left, append(node.right, added));
+    }
+
+    private static Node replace(Node node, int index, Task task) {
+        int leftSize = sizeOf(node.left);
+        if (index < leftSize) {
+            return node.withChildren(replace(node.left, index, task), node.right);
+        }
+        if (index > leftSize) {
+            return node.withChildren(node.left, replace(node.right, index - leftSize - 1, task));
+        }
+        return new Node(task, node.ordinal, node.left, node.right);
+    }
+
+    private static Node remove(Node node, int index) {
+        int leftSize = sizeOf(node.left);
+        if (index < leftSize) {
+            return node.withChildren(remove(node.left, index), node.right);
+        }
+        if (index > leftSize) {
+            return node.withChildren(node.left, remove(node.right, index - leftSize - 1));
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Joins two treaps where every ordinal of the first is smaller than every ordinal of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (priority(first.ordinal) > priority(second.ordinal)) {
+            return first.withChildren(first.left, merge(first.right, second));
+        }
+        return second.withChildren(merge(first, second.left), second.right);
+    }
+
+    private static void forEach(Node node, Consumer<Node> action) {
+        if (node == null) {
+            return;
+        }
+        forEach(node.left, action);
+        action.accept(node);
+        forEach(node.right, action);
+    }
+
+    /**
+     * Returns a copy of the task with the given done state. The copy keeps the same ID and description string.
+     */
+    private static Task withDone(Task task, boolean isDone) {
+        Task copy;
+        if (task instanceof Deadline deadline) {
+            copy = Deadline.ofEpochMinutes(task.getName(), deadline.getByEpochMinutes());
+        } else if (task instanceof Event event) {
+            copy = Event.ofEpochMinutes(task.getName(), event.getFromEpochMinutes(), event.getToEpochMinutes());
+        } else if (task instanceof ToDo) {
+            copy = new ToDo(task.getName());
+        } else {
+            throw new IllegalArgumentException("Unsupported task type: " + task.getClass().getSimpleName());
+        }
+        copy.assignId(task.getId());
+        if (isDone) {
+            copy.mark();
+        }
+        copy.joinList();
+        return copy;
+    }
+
+    private static int priority(int ordinal) {
+        return IntervalTree.mix(ordinal);
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
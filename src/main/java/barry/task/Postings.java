@@ -0,0 +1,118 @@
+package barry.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents a posting list: the ordinals of the tasks that share a search key, in ascending order.
+ *
+ * <p>Tasks are only ever added at the end of a {@link TaskList}, with increasing ordinals, so appending keeps
+ * the list sorted. Ordinals of removed tasks are left in place and skipped by the reader until the owning index
+ * is rebuilt.</p>
+ */
+class Postings {
+    private static final int INITIAL_CAPACITY = 4;
+    private int[] ordinals = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Appends an ordinal, ignoring it if it is already the last one (a key repeated within one task).
+     *
+     * @param ordinal Ordinal of the task, not smaller than any ordinal added before.
+     */
+    void add(int ordinal) {
+        assert size == 0 || ordinal >= ordinals[size - 1] : "ordinals must be added in ascending order";
+        if (size > 0 && ordinals[size - 1] == ordinal) {
+            return;
+        }
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        ordinals[size++] = ordinal;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int i) {
+        return ordinals[i];
+    }
+
+    /**
+     * Copies the ordinals into the array at the given offset.
+     *
+     * @param target Array to copy into.
+     * @param offset Position in the array of the first ordinal.
+     */
+    void copyInto(int[] target, int offset) {
+        System.arraycopy(ordinals, 0, target, offset, size);
+    }
+
+    /**
+     * Returns the union of the given posting lists as a sorted array without duplicates.
+     *
+     * @param postings Posting lists to merge.
+     * @return Ascending ordinals that appear in any of the lists.
+     */
+    static int[] union(Iterable<Postings> postings) {
+        int total = 0;
+        int listCount = 0;
+        for (Postings list : postings) {
+            total += list.size;
+            listCount++;
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (Postings list : postings) {
+            list.copyInto(merged, offset);
+            offset += list.size;
+        }
+        if (listCount <= 1) {
+            return merged;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (distinct == 0 || merged[distinct - 1] != merged[i]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+
+    /**
+     * Returns the intersection of the given posting lists as a sorted array.
+     *
+     * <p>The smallest list is walked and each of its ordinals is looked up in the other lists by binary search,
+     * so the cost follows the size of the smallest list rather than that of the largest.</p>
+     *
+     * @param postings Posting lists to intersect; must not be empty.
+     * @return Ascending ordinals that appear in every list.
+     */
+    static int[] intersect(List<Postings> postings) {
+        assert !postings.isEmpty() : "postings must not be empty";
+        List<Postings> bySize = new ArrayList<>(postings);
+        bySize.sort(Comparator.comparingInt(Postings::size));
+        Postings smallest = bySize.get(0);
+        int[] lowerBounds = new int[bySize.size()];
+        int[] common = new int[smallest.size];
+        int count = 0;
+        for (int i = 0; i < smallest.size; i++) {
+            int ordinal = smallest.ordinals[i];
+            boolean isInAll = true;
+            for (int list = 1; list < bySize.size() && isInAll; list++) {
+                Postings other = bySize.get(list);
+                int found = Arrays.binarySearch(other.ordinals, lowerBounds[list], other.size, ordinal);
+                isInAll = found >= 0;
+                lowerBounds[list] = isInAll ? found + 1 : -found - 1;
+            }
+            if (isInAll) {
+                common[count++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+}
@@ -6,12 +6,20 @@ package barry.task;
  * <p>{@code Task} is the abstract concept underlying all task types in the application.
  * Subclasses such as {@code ToDo}, {@code Deadline}, and {@code Event} extend this class
  * to include task-type-specific data while reusing the common done/undone behavior.</p>
+ *
+ * <p>A task also carries an ID that stays the same for as long as the task exists, however the tasks before it
+ * move. A new task has no ID (0) until a {@link TaskList} gives it the next free one.</p>
+ *
+ * <p>A list keeps its own record of which of its tasks are done, so once a task is in a list only the list can
+ * mark or unmark it, through {@link TaskList#markTask(int)} and {@link TaskList#unmarkTask(int)}.</p>
  */
 public abstract class Task {
     private static final String DONE_MARK = "X";
     private static final String UNDONE_MARK = " ";
-    private final String name;
+    private String name;
     private boolean done;
+    private long id = 0;
+    private boolean isListed = false;
 
     /**
      * Constructs a task with the given description.
@@ -24,14 +32,27 @@ public abstract class Task {
         this.done = false;
     }
 
-    public void mark() {
+    void mark() {
         this.done = true;
     }
 
-    public void unmark() {
+    void unmark() {
         this.done = false;
     }
 
+    /**
+     * Gives the task the done state it was saved with, while it is loaded and before it joins a list.
+     *
+     * @param isDone Whether the task is done.
+     * @throws IllegalStateException If the task is already in a list, which must mark it instead.
+     */
+    public void restoreDoneState(boolean isDone) {
+        if (isListed) {
+            throw new IllegalStateException("A task in a list must be marked through the list.");
+        }
+        this.done = isDone;
+    }
+
     public boolean isDone() {
         return this.done;
     }
@@ -40,6 +61,38 @@ public abstract class Task {
         return this.name;
     }
 
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Gives the task its ID, e.g. the one it was saved with. A task's ID cannot change once assigned.
+     *
+     * @param id Positive ID of the task.
+     */
+    public void assignId(long id) {
+        assert id > 0 : "id must be positive";
+        assert this.id == 0 || this.id == id : "a task's id cannot change";
+        this.id = id;
+    }
+
+    /**
+     * Records that the task is held by a list, after which only the list may change its done state.
+     */
+    void joinList() {
+        this.isListed = true;
+    }
+
+    /**
+     * Replaces the description with an equal string, so that tasks with the same description can share one copy.
+     *
+     * @param equalName String equal to the current description.
+     */
+    void shareName(String equalName) {
+        assert name.equals(equalName) : "shared name must equal the description";
+        this.name = equalName;
+    }
+
     /**
      * Returns whether another task has the same task details as this task.
      * Task details include task type and task-specific content.
@@ -51,8 +104,17 @@ public abstract class Task {
         if (other == null) {
             return false;
         }
-        return this.getClass().equals(other.getClass())
-                && this.getName().equals(other.getName());
+        return this.getDetails().equals(other.getDetails());
+    }
+
+    /**
+     * Returns the details of this task, i.e. its type and task-specific content.
+     * Tasks with equal details are duplicates of each other.
+     *
+     * @return Details of this task.
+     */
+    public TaskDetails getDetails() {
+        return new TaskDetails(this.getClass(), this.name, 0, 0);
     }
 
     @Override
@@ -0,0 +1,88 @@
+package barry.task;
+
+/**
+ * Represents a single mutation applied to a {@link TaskList} since it was last persisted.
+ *
+ * <p>{@code TaskChange} objects are recorded by {@code TaskList} and drained by {@code Storage},
+ * which can then persist just the mutations instead of rewriting the whole list.</p>
+ */
+public class TaskChange {
+    /**
+     * Kinds of mutations that can be applied to a task list.
+     */
+    public enum Kind {
+        ADD,
+        INSERT,
+        MARK,
+        UNMARK,
+        REMOVE
+    }
+
+    public final Kind kind;
+
+    // 0-based position of the affected task at the time of the change.
+    public final int index;
+
+    // For ADD and INSERT
+    public final Task task;
+
+    private TaskChange(Kind kind, int index, Task task) {
+        this.kind = kind;
+        this.index = index;
+        this.task = task;
+    }
+
+    /**
+     * Creates a change describing a task appended at the given position.
+     *
+     * @param index 0-based position of the new task.
+     * @param task The task that was added.
+     * @return A {@code TaskChange} of kind {@code ADD}.
+     */
+    public static TaskChange added(int index, Task task) {
+        assert task != null : "task must not be null";
+        return new TaskChange(Kind.ADD, index, task);
+    }
+
+    /**
+     * Creates a change describing a task put back before the end of the list, e.g. by undoing its removal.
+     *
+     * @param index 0-based position of the task after the insertion.
+     * @param task The task that was inserted.
+     * @return A {@code TaskChange} of kind {@code INSERT}.
+     */
+    public static TaskChange inserted(int index, Task task) {
+        assert task != null : "task must not be null";
+        return new TaskChange(Kind.INSERT, index, task);
+    }
+
+    /**
+     * Creates a change describing a task marked as done.
+     *
+     * @param index 0-based position of the marked task.
+     * @return A {@code TaskChange} of kind {@code MARK}.
+     */
+    public static TaskChange marked(int index) {
+        return new TaskChange(Kind.MARK, index, null);
+    }
+
+    /**
+     * Creates a change describing a task marked as not done.
+     *
+     * @param index 0-based position of the unmarked task.
+     * @return A {@code TaskChange} of kind {@code UNMARK}.
+     */
+    public static TaskChange unmarked(int index) {
+        return new TaskChange(Kind.UNMARK, index, null);
+    }
+
+    /**
+     * Creates a change describing a task removed from the given position.
+     *
+     * @param index 0-based position of the removed task.
+     * @return A {@code TaskChange} of kind {@code REMOVE}.
+     */
+    public static TaskChange removed(int index) {
+        return new TaskChange(Kind.REMOVE, index, null);
+    }
+}
@@ -0,0 +1,57 @@
+package barry.task;
+
+/**
+ * Represents the details that make two tasks duplicates of each other: the task type, the description and the
+ * task-specific dates. The completion status is not part of the details.
+ *
+ * <p>Details are immutable and hash consistently with {@link #equals(Object)}, so they can key a hash index of
+ * the tasks in a list.</p>
+ */
+public final class TaskDetails {
+    private final Class<? extends Task> type;
+    private final String name;
+    private final long firstTime;
+    private final long secondTime;
+    private final int hash;
+
+    /**
+     * Constructs the details of a task.
+     *
+     * @param type Concrete class of the task.
+     * @param name Task description.
+     * @param firstTime First task-specific time in epoch minutes, or 0 if the task type has none.
+     * @param secondTime Second task-specific time in epoch minutes, or 0 if the task type has none.
+     */
+    TaskDetails(Class<? extends Task> type, String name, long firstTime, long secondTime) {
+        assert type != null : "type must not be null";
+        assert name != null : "name must not be null";
+        this.type = type;
+        this.name = name;
+        this.firstTime = firstTime;
+        this.secondTime = secondTime;
+        int result = type.hashCode();
+        result = 31 * result + name.hashCode();
+        result = 31 * result + Long.hashCode(firstTime);
+        this.hash = 31 * result + Long.hashCode(secondTime);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof TaskDetails otherDetails)) {
+            return false;
+        }
+        return hash == otherDetails.hash
+                && type.equals(otherDetails.type)
+                && name.equals(otherDetails.name)
+                && firstTime == otherDetails.firstTime
+                && secondTime == otherDetails.secondTime;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -1,7 +1,14 @@
 package barry.task;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -13,26 +20,118 @@ import barry.exception.BarryException;
  * <p>This class encapsulates the internal task collection and provides operations to add, remove,
  * retrieve, and validate access to tasks. It centralizes task-list-related logic such as index checking,
  * reducing direct manipulation of the underlying list by other components.</p>
+ *
+ * <p>The tasks are held by a {@link TaskStore}, which is copy-on-write with respect to {@link #snapshot()}:
+ * once a snapshot has been handed out, later structural changes do not show through it. By default every task
+ * is kept as its own object; {@link #columnar(List)} creates a list that keeps them in primitive columns instead
+ * and hands out a fresh view on every read.</p>
+ *
+ * <p>The list is safe to use from several threads. It is guarded by a {@link StampedLock}: mutators take the
+ * write lock and queries the read lock, while {@link #size()} and {@link #getTask(int)} first try an optimistic
+ * read that takes no lock and fall back to the read lock if a writer got in the way. Steps that must not
+ * interleave with other threads, such as validating a task number and then marking the task, or taking a
+ * snapshot together with its matching changes, go in {@link #atomically(AtomicSection)}.</p>
+ *
+ * <p>Every task gets an ordinal when it joins the list. Ordinals only grow and tasks are only added at the end,
+ * so the ordinals of the list are sorted and the store finds a task's position by searching for its ordinal.
+ * Search indexes store ordinals rather than positions, so removing a task never requires renumbering them:
+ * ordinals of removed tasks are simply skipped, and the indexes are rebuilt once they outnumber the live tasks.</p>
+ *
+ * <p>Every task also has an ID, which unlike its position never changes while the task exists. Tasks added
+ * without one get the next free ID, which is never given out again, not even once its task is deleted; a list
+ * loaded from a save file takes over the file's next free ID through {@link #reserveIdsBelow(long)}. An ID hash
+ * table maps each ID to the task's ordinal, so {@link #findPositionById(long)} takes a constant-time lookup plus
+ * the store's search for the ordinal.</p>
+ *
+ * <p>The done flags of the tasks are also kept in a bitset indexed by position, updated whenever
+ * {@link #markTask(int)} or {@link #unmarkTask(int)} marks or unmarks a task and moved along with the positions
+ * on removals. {@link #countDone()} therefore takes O(n/64) time and {@link #findByDoneState(boolean)} time
+ * proportional to its answer. A task in a list can only be marked through the list, which keeps the two in
+ * step.</p>
+ *
+ * <p>Deadlines are also kept sorted by due time and events in an interval tree, so date queries such as
+ * {@link #findOverdue(LocalDateTime)} take logarithmic time plus the size of their answer. These two indexes
+ * drop a task as soon as it is removed.</p>
+ *
+ * <p>A list created by {@link #versioned(List)} keeps its tasks in a persistent tree instead, so that every change
+ * leaves the previous {@link Version} intact at the cost of O(log n) new nodes. {@link #restore(Version)} brings
+ * back any earlier or later version, e.g. to undo a command, in time proportional to the tasks that differ.</p>
  */
 public class TaskList {
     private static final int INDEX_OFFSET = 1;
-    private final ArrayList<Task> tasks;
+    private static final int MIN_REMOVALS_BEFORE_REINDEX = 64;
+    private final StampedLock lock = new StampedLock();
+    private final ReentrantLock writerGate = new ReentrantLock();
+    private final ArrayList<TaskChange> pendingChanges = new ArrayList<>();
+    private final TokenIndex tokenIndex = new TokenIndex();
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final HashIndex detailsIndex = new HashIndex();
+    private final HashIndex nameIndex = new HashIndex();
+    private final IdIndex idIndex = new IdIndex();
+    private final DoneFlags doneFlags = new DoneFlags();
+    private final DeadlineIndex deadlineIndex = new DeadlineIndex();
+    private final IntervalTree eventIndex = new IntervalTree();
+    private final TaskStore store;
+    private int nextOrdinal = 0;
+    private long nextId = 1;
+    private int removedSinceReindex = 0;
+    // Tasks with smaller ordinals are in the search indexes only if they were live at the last reindex.
+    private int reindexedBelow = 0;
+    private PersistentTaskStore.Node reindexedVersion;
+    // Set only by the thread holding the write lock, so a thread reading its own value here is never misled.
+    private Thread writer;
 
     /**
      * Constructs an empty task list.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ObjectTaskStore(0), List.of());
     }
 
     /**
      * Constructs a task list initialized with the given tasks.
+     * Tasks with equal descriptions are made to share one copy of it.
      *
      * @param tasks Initial tasks to store in the list.
      */
     public TaskList(List<Task> tasks) {
+        this(new ObjectTaskStore(tasks.size()), tasks);
+    }
+
+    private TaskList(TaskStore store, List<Task> tasks) {
         assert tasks != null : "tasks must not be null";
-        this.tasks = new ArrayList<>(tasks);
+        this.store = store;
+        // Tasks without an ID must not be given one that a later task already has.
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : tasks) {
+            appendTask(task);
+        }
+    }
+
+    /**
+     * Returns a task list initialized with the given tasks that keeps them in primitive columns rather than as
+     * one object each, which takes far less heap for large lists. Tasks read from such a list are views created
+     * on demand: they are read-only, and two reads of the same position return different objects.
+     *
+     * @param tasks Initial tasks to store in the list.
+     * @return A column-backed task list.
+     */
+    public static TaskList columnar(List<Task> tasks) {
+        return new TaskList(new ColumnarTaskStore(tasks.size()), tasks);
+    }
+
+    /**
+     * Returns a task list initialized with the given tasks that keeps every version of itself restorable through
+     * {@link #currentVersion()} and {@link #restore(Version)}. Reading a task by position takes O(log n) time.
+     * Marking a task replaces it with a marked copy, so a task read earlier does not reflect later marks.
+     *
+     * @param tasks Initial tasks to store in the list.
+     * @return A versioned task list.
+     */
+    public static TaskList versioned(List<Task> tasks) {
+        return new TaskList(new PersistentTaskStore(), tasks);
     }
 
     /**
@@ -42,7 +141,13 @@ public class TaskList {
      */
     public void addTask(Task task) {
         assert task != null : "task must not be null";
-        tasks.add(task);
+        long stamp = acquireWrite();
+        try {
+            appendTask(task);
+            pendingChanges.add(TaskChange.added(store.size() - 1, task));
+        } finally {
+            releaseWrite(stamp);
+        }
     }
 
     /**
@@ -52,8 +157,117 @@ public class TaskList {
      * @throws IndexOutOfBoundsException If index is out of range.
      */
     public void removeTask(int index) {
-        assert index >= 0 && index < size() : "index out of range";
-        tasks.remove(index);
+        long stamp = acquireWrite();
+        try {
+            assert index >= 0 && index < size() : "index out of range";
+            unindexSchedule(store.get(index), store.ordinalAt(index));
+            BitSet position = new BitSet();
+            position.set(index);
+            store.removeAll(position);
+            doneFlags.removeAll(position);
+            noteRemovals(1);
+            pendingChanges.add(TaskChange.removed(index));
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the tasks at the given positions in a single pass over the list.
+     *
+     * @param indices Distinct 0-based positions in ascending order.
+     * @return The removed tasks, in ascending order of position.
+     */
+    public List<Task> removeAll(int[] indices) {
+        assert indices != null : "indices must not be null";
+        BitSet positions = new BitSet();
+        for (int i = 0; i < indices.length; i++) {
+            assert i == 0 || indices[i - 1] < indices[i] : "indices must be ascending and distinct";
+            positions.set(indices[i]);
+        }
+        return removeAll(positions);
+    }
+
+    /**
+     * Removes the tasks at the given positions in a single pass over the list.
+     * The removals are recorded from the last position to the first, so each recorded position is the one the
+     * task had at the time it was removed.
+     *
+     * @param positions Set bits are the 0-based positions of the tasks to remove.
+     * @return The removed tasks, in ascending order of position.
+     */
+    public List<Task> removeAll(BitSet positions) {
+        assert positions != null : "positions must not be null";
+        long stamp = acquireWrite();
+        try {
+            assert positions.length() <= size() : "index out of range";
+            int count = positions.cardinality();
+            List<Task> removed = new ArrayList<>(count);
+            if (count == 0) {
+                return removed;
+            }
+            for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+                Task task = store.get(i);
+                removed.add(task);
+                unindexSchedule(task, store.ordinalAt(i));
+            }
+            store.removeAll(positions);
+            doneFlags.removeAll(positions);
+            noteRemovals(count);
+            int position = positions.length() - 1;
+            while (position >= 0) {
+                pendingChanges.add(TaskChange.removed(position));
+                position = positions.previousSetBit(position - 1);
+            }
+            return removed;
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    private void noteRemovals(int count) {
+        removedSinceReindex += count;
+        if (removedSinceReindex >= MIN_REMOVALS_BEFORE_REINDEX && removedSinceReindex > store.size()) {
+            reindex();
+        }
+    }
+
+    /**
+     * Marks the task at the specified 0-based index as done.
+     *
+     * @param index 0-based index of the task to mark.
+     * @return The marked task.
+     */
+    public Task markTask(int index) {
+        long stamp = acquireWrite();
+        try {
+            assert index >= 0 && index < size() : "index out of range";
+            store.setDone(index, true);
+            doneFlags.set(index, true);
+            pendingChanges.add(TaskChange.marked(index));
+            return store.get(index);
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the task at the specified 0-based index as not done.
+     *
+     * @param index 0-based index of the task to unmark.
+     * @return The unmarked task.
+     */
+    public Task unmarkTask(int index) {
+        long stamp = acquireWrite();
+        try {
+            assert index >= 0 && index < size() : "index out of range";
+            store.setDone(index, false);
+            doneFlags.set(index, false);
+            pendingChanges.add(TaskChange.unmarked(index));
+            return store.get(index);
+        } finally {
+            releaseWrite(stamp);
+        }
     }
 
     /**
@@ -64,8 +278,24 @@ public class TaskList {
      * @throws IndexOutOfBoundsException If index is out of range.
      */
     public Task getTask(int index) {
-        assert index >= 0 && index < size() : "index out of range";
-        return tasks.get(index);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Task task = index >= 0 && index < store.size() ? store.get(index) : null;
+                if (task != null && lock.validate(stamp)) {
+                    return task;
+                }
+            } catch (RuntimeException e) {
+                // A writer changed the store mid-read; the read is retried under the read lock below.
+            }
+        }
+        stamp = acquireRead();
+        try {
+            assert index >= 0 && index < store.size() : "index out of range";
+            return store.get(index);
+        } finally {
+            releaseRead(stamp);
+        }
     }
 
     /**
@@ -74,7 +304,427 @@ public class TaskList {
      * @return Task count.
      */
     public int size() {
-        return tasks.size();
+        long stamp = lock.tryOptimisticRead();
+        int size = store.size();
+        if (lock.validate(stamp)) {
+            return size;
+        }
+        stamp = acquireRead();
+        try {
+            return store.size();
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a section of code that must see and change the list without other threads interleaving, e.g. checking
+     * that a task number is in range and then marking the task. Other threads cannot read or change the list
+     * until the section ends. The section may call any method of the list, but should not wait for other threads
+     * that use it, e.g. by saving to disk.
+     *
+     * @param section Code to run.
+     * @param <T> Type of the section's result.
+     * @param <E> Type of exception the section may throw.
+     * @return The section's result.
+     * @throws E If the section throws it.
+     */
+    public <T, E extends Exception> T atomically(AtomicSection<T, E> section) throws E {
+        assert section != null : "section must not be null";
+        long stamp = acquireWrite();
+        try {
+            return section.run();
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    /**
+     * Represents a section of code run by {@link #atomically(AtomicSection)}.
+     *
+     * @param <T> Type of the section's result.
+     * @param <E> Type of exception the section may throw.
+     */
+    @FunctionalInterface
+    public interface AtomicSection<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * Returns a read-only view of the tasks as they are now, which later additions and removals do not affect.
+     * Taking a snapshot is O(1); the cost of copying is paid by the next structural change, if any.
+     * The done state of each task is not frozen, as it is shared with the snapshot.
+     *
+     * @return An unmodifiable snapshot of the task sequence.
+     */
+    public List<Task> snapshot() {
+        long stamp = acquireWrite();
+        try {
+            return store.snapshot();
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the version the list is at now. Versions are immutable, so holding on to one keeps the tasks as they
+     * are now for a later {@link #restore(Version)}. Taking a version is O(1).
+     *
+     * @return The current version.
+     * @throws UnsupportedOperationException If the list was not created by {@link #versioned(List)}.
+     */
+    public Version currentVersion() {
+        long stamp = acquireRead();
+        try {
+            return new Version(versionedStore().current());
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Brings the list back to the given version, e.g. the one taken before a command to undo that command.
+     * Only the tasks that differ between the current version and the given one are visited, so the cost follows
+     * the size of the difference rather than the size of the list. The differences are recorded as changes, so
+     * the next save persists the restored version.
+     *
+     * @param version An earlier or later version of this list.
+     * @throws UnsupportedOperationException If the list was not created by {@link #versioned(List)}.
+     */
+    public void restore(Version version) {
+        assert version != null : "version must not be null";
+        long stamp = acquireWrite();
+        try {
+            PersistentTaskStore versions = versionedStore();
+            VersionDiff diff = new VersionDiff();
+            PersistentTaskStore.diff(versions.current(), version.root, diff);
+            // Removals are recorded from the last position to the first, additions from the first to the last,
+            // so that each recorded position is right at the time the change is applied.
+            BitSet removedPositions = new BitSet();
+            for (int i = diff.removedOrdinals.size() - 1; i >= 0; i--) {
+                int ordinal = diff.removedOrdinals.get(i);
+                unindexSchedule(diff.removedTasks.get(i), ordinal);
+                int position = positionOf(ordinal);
+                removedPositions.set(position);
+                pendingChanges.add(TaskChange.removed(position));
+            }
+            doneFlags.removeAll(removedPositions);
+            int sizeBeforeAdditions = store.size() - diff.removedOrdinals.size();
+            versions.restore(version.root);
+            boolean isReindexDue = false;
+            for (int i = 0; i < diff.addedOrdinals.size(); i++) {
+                int ordinal = diff.addedOrdinals.get(i);
+                Task task = diff.addedTasks.get(i);
+                int position = positionOf(ordinal);
+                pendingChanges.add(position == sizeBeforeAdditions + i
+                        ? TaskChange.added(position, task)
+                        : TaskChange.inserted(position, task));
+                doneFlags.insert(position, task.isDone());
+                indexSchedule(task, ordinal);
+                isReindexDue |= !isSearchIndexed(ordinal);
+            }
+            for (int i = 0; i < diff.replacedOrdinals.size(); i++) {
+                int position = positionOf(diff.replacedOrdinals.get(i));
+                doneFlags.set(position, diff.replacedTasks.get(i).isDone());
+                pendingChanges.add(diff.replacedTasks.get(i).isDone()
+                        ? TaskChange.marked(position)
+                        : TaskChange.unmarked(position));
+            }
+            if (isReindexDue) {
+                reindex();
+            } else {
+                noteRemovals(diff.removedOrdinals.size());
+            }
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    private PersistentTaskStore versionedStore() {
+        if (!(store instanceof PersistentTaskStore versions)) {
+            throw new UnsupportedOperationException("Only a versioned task list keeps its versions");
+        }
+        return versions;
+    }
+
+    /**
+     * Represents the tasks of a versioned list, with their done state, at one point in time.
+     * Two versions are equal if they are the same point in the list's history.
+     */
+    public static final class Version {
+        private final PersistentTaskStore.Node root;
+
+        private Version(PersistentTaskStore.Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Version otherVersion && root == otherVersion.root;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(root);
+        }
+    }
+
+    /**
+     * Collects the tasks that differ between two versions, each kind in ascending order of ordinal.
+     */
+    private static class VersionDiff implements PersistentTaskStore.DiffVisitor {
+        private final List<Task> removedTasks = new ArrayList<>();
+        private final List<Integer> removedOrdinals = new ArrayList<>();
+        private final List<Task> addedTasks = new ArrayList<>();
+        private final List<Integer> addedOrdinals = new ArrayList<>();
+        private final List<Task> replacedTasks = new ArrayList<>();
+        private final List<Integer> replacedOrdinals = new ArrayList<>();
+
+        @Override
+        public void removed(Task task, int ordinal) {
+            removedTasks.add(task);
+            removedOrdinals.add(ordinal);
+        }
+
+        @Override
+        public void added(Task task, int ordinal) {
+            addedTasks.add(task);
+            addedOrdinals.add(ordinal);
+        }
+
+        @Override
+        public void replaced(Task oldTask, Task newTask, int ordinal) {
+            assert oldTask.hasSameDetails(newTask) : "versions only ever replace a task to mark or unmark it";
+            replacedTasks.add(newTask);
+            replacedOrdinals.add(ordinal);
+        }
+    }
+
+    /**
+     * Returns whether the list holds a task with the same details as the given task.
+     *
+     * @param task Task to look for.
+     * @return true if adding the task would duplicate an existing one.
+     */
+    public boolean containsSameDetails(Task task) {
+        assert task != null : "task must not be null";
+        long stamp = acquireRead();
+        try {
+            TaskDetails details = task.getDetails();
+            return detailsIndex.find(details.hashCode(), ordinal -> {
+                int position = positionOf(ordinal);
+                return position >= 0 && store.get(position).getDetails().equals(details);
+            }) >= 0;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the current 0-based position of the task with the given ID.
+     *
+     * @param id ID of the task.
+     * @return Position of the task, or -1 if no task in the list has that ID.
+     */
+    public int findPositionById(long id) {
+        long stamp = acquireRead();
+        try {
+            int ordinal = idIndex.get(id);
+            int position = ordinal < 0 ? -1 : positionOf(ordinal);
+            return position >= 0 ? position : -1;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the ID the next task added without one will get. It is greater than every ID this list has given
+     * out or been given, including the IDs of tasks that have since been removed.
+     *
+     * @return The next free task ID.
+     */
+    public long getNextId() {
+        long stamp = acquireRead();
+        try {
+            return nextId;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Makes sure this list never gives out an ID below the given one, e.g. the next free ID recorded in the save
+     * file the list was loaded from, so that the IDs of tasks deleted before that save are not reused.
+     *
+     * @param id Lowest ID the list may give out from now on.
+     */
+    public void reserveIdsBelow(long id) {
+        long stamp = acquireWrite();
+        try {
+            nextId = Math.max(nextId, id);
+        } finally {
+            releaseWrite(stamp);
+        }
+    }
+
+    private void appendTask(Task task) {
+        if (task.getId() == 0) {
+            task.assignId(nextId);
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+        task.joinList();
+        store.add(task, nextOrdinal++);
+        doneFlags.insert(doneFlags.size(), task.isDone());
+        indexTask(store.size() - 1);
+    }
+
+    private void indexTask(int position) {
+        int ordinal = store.ordinalAt(position);
+        Task task = store.get(position);
+        shareName(position, task.getName(), ordinal);
+        String lowerCaseName = task.getName().toLowerCase();
+        tokenIndex.add(ordinal, lowerCaseName);
+        trigramIndex.add(ordinal, lowerCaseName);
+        detailsIndex.add(task.getDetails().hashCode(), ordinal);
+        idIndex.put(task.getId(), ordinal);
+        indexSchedule(task, ordinal);
+    }
+
+    private void indexSchedule(Task task, int ordinal) {
+        if (task instanceof Deadline deadline) {
+            deadlineIndex.add(deadline.getByEpochMinutes(), ordinal);
+        } else if (task instanceof Event event) {
+            eventIndex.insert(event.getFromEpochMinutes(), event.getToEpochMinutes(), ordinal);
+        }
+    }
+
+    /**
+     * Lets the task at the given position share its description with an earlier task that has an equal one, so
+     * that a list full of recurring descriptions keeps one copy of each. Only the first live task with a given
+     * description is entered in the name index.
+     */
+    private void shareName(int position, String name, int ordinal) {
+        int nameHash = name.hashCode();
+        int sameOrdinal = nameIndex.find(nameHash, other -> {
+            int otherPosition = positionOf(other);
+            return otherPosition >= 0 && store.getName(otherPosition).equals(name);
+        });
+        if (sameOrdinal < 0) {
+            nameIndex.add(nameHash, ordinal);
+        } else {
+            store.shareName(position, positionOf(sameOrdinal));
+        }
+    }
+
+    private void unindexSchedule(Task task, int ordinal) {
+        if (task instanceof Deadline deadline) {
+            deadlineIndex.remove(deadline.getByEpochMinutes(), ordinal);
+        } else if (task instanceof Event event) {
+            eventIndex.remove(event.getFromEpochMinutes(), ordinal);
+        }
+    }
+
+    /**
+     * Rebuilds the search indexes from scratch, dropping removed tasks from them. The tasks keep their ordinals,
+     * as versions of the list that are not current may still refer to them.
+     */
+    private void reindex() {
+        tokenIndex.clear();
+        trigramIndex.clear();
+        detailsIndex.clear();
+        nameIndex.clear();
+        idIndex.clear();
+        deadlineIndex.clear();
+        eventIndex.clear();
+        removedSinceReindex = 0;
+        reindexedBelow = nextOrdinal;
+        reindexedVersion = store instanceof PersistentTaskStore versions ? versions.current() : null;
+        for (int position = 0; position < store.size(); position++) {
+            indexTask(position);
+        }
+    }
+
+    /**
+     * Returns the current 0-based position of the task with the given ordinal, or a negative number if
+     * that task has been removed.
+     */
+    private int positionOf(int ordinal) {
+        return store.positionOf(ordinal);
+    }
+
+    /**
+     * Returns whether the search indexes hold the task with the given ordinal, e.g. one that a restored version
+     * brings back.
+     */
+    private boolean isSearchIndexed(int ordinal) {
+        return ordinal >= reindexedBelow || PersistentTaskStore.positionOf(reindexedVersion, ordinal) >= 0;
+    }
+
+    /**
+     * Takes the write lock, unless the calling thread already holds it.
+     *
+     * @return The stamp to pass to {@link #releaseWrite(long)}.
+     */
+    private long acquireWrite() {
+        if (writer == Thread.currentThread()) {
+            return 0;
+        }
+        writerGate.lock();
+        long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        return stamp;
+    }
+
+    private void releaseWrite(long stamp) {
+        if (stamp != 0) {
+            writer = null;
+            lock.unlockWrite(stamp);
+            writerGate.unlock();
+        }
+    }
+
+    /**
+     * Takes the read lock, unless the calling thread already holds the write lock.
+     * A StampedLock lets new readers in while a writer waits, so readers that keep overlapping could starve
+     * writers forever: with four threads running {@code find}, a writer got about one write a second through
+     * (see {@code TaskListLockBenchmark}). A writer therefore holds the writer gate from before it asks for the
+     * lock until it lets go, and new readers that find the gate held wait on it, parked rather than spinning,
+     * until the writer is done. For the same reason read locks must not be nested.
+     *
+     * @return The stamp to pass to {@link #releaseRead(long)}.
+     */
+    private long acquireRead() {
+        if (writer == Thread.currentThread()) {
+            return 0;
+        }
+        if (writerGate.isLocked()) {
+            writerGate.lock();
+            writerGate.unlock();
+        }
+        return lock.readLock();
+    }
+
+    private void releaseRead(long stamp) {
+        if (stamp != 0) {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the changes made through this list since the last call, and clears them.
+     * Tasks passed to the constructor are treated as already persisted and are not reported.
+     *
+     * @return The pending changes, oldest first.
+     */
+    public List<TaskChange> drainChanges() {
+        long stamp = acquireWrite();
+        try {
+            List<TaskChange> changes = new ArrayList<>(pendingChanges);
+            pendingChanges.clear();
+            return changes;
+        } finally {
+            releaseWrite(stamp);
+        }
     }
 
     /**
@@ -85,7 +735,8 @@ public class TaskList {
      */
     public void ensureIndexInRange1Based(int taskNum) throws BarryException {
         if (taskNum < INDEX_OFFSET || taskNum > size()) {
-            throw new BarryException("Task number out of range.");
+            throw new BarryException("Task number " + taskNum + " is out of range. You have " + size()
+                    + " tasks on the chart.");
         }
     }
 
@@ -108,17 +759,353 @@ public class TaskList {
         }
     }
 
+    /**
+     * Represents a stretch of time, e.g. one during which no event takes place.
+     */
+    public static class TimeSlot {
+        public final LocalDateTime start;
+        public final LocalDateTime end;
+
+        /**
+         * Constructor for the TimeSlot class.
+         *
+         * @param start Start of the slot, inclusive.
+         * @param end End of the slot, exclusive.
+         */
+        public TimeSlot(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Represents two events in the list whose times overlap.
+     */
+    public static class EventConflict {
+        public final IndexedTask first;
+        public final IndexedTask second;
+
+        /**
+         * Constructor for the EventConflict class.
+         *
+         * @param first The event that starts first.
+         * @param second The event that starts at the same time or later.
+         */
+        public EventConflict(IndexedTask first, IndexedTask second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Represents how much heap the task descriptions of a list take.
+     */
+    public static class DescriptionMemory {
+        public final int taskCount;
+        public final long bytesUsed;
+        public final long unsharedBytes;
+
+        /**
+         * Constructor for the DescriptionMemory class.
+         *
+         * @param taskCount Number of tasks in the list.
+         * @param bytesUsed Estimated bytes the descriptions take as stored.
+         * @param unsharedBytes Estimated bytes they would take with one string per task.
+         */
+        public DescriptionMemory(int taskCount, long bytesUsed, long unsharedBytes) {
+            this.taskCount = taskCount;
+            this.bytesUsed = bytesUsed;
+            this.unsharedBytes = unsharedBytes;
+        }
+    }
+
+    /**
+     * Returns the number of tasks that are done, by counting the set bits of the done flags.
+     *
+     * @return Count of done tasks.
+     */
+    public int countDone() {
+        long stamp = acquireRead();
+        try {
+            return doneFlags.cardinality();
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the tasks that are done, or those that are not, in list order. Runs of tasks in the other state are
+     * skipped a word of flags at a time, so the cost follows the number of tasks returned.
+     *
+     * @param isDone Whether to find the done tasks rather than the pending ones.
+     * @return Matching tasks paired with their 1-based indices.
+     */
+    public List<IndexedTask> findByDoneState(boolean isDone) {
+        long stamp = acquireRead();
+        try {
+            List<IndexedTask> matches = new ArrayList<>();
+            int position = isDone ? doneFlags.nextSetBit(0) : doneFlags.nextClearBit(0);
+            while (position >= 0) {
+                matches.add(new IndexedTask(position + INDEX_OFFSET, store.get(position)));
+                position = isDone ? doneFlags.nextSetBit(position + 1) : doneFlags.nextClearBit(position + 1);
+            }
+            return matches;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Estimates the heap taken by the task descriptions, counting shared storage once, and compares it with one
+     * string per task. Takes time linear in the size of the list.
+     *
+     * @return The measured description memory.
+     */
+    public DescriptionMemory measureDescriptions() {
+        long stamp = acquireRead();
+        try {
+            long unsharedBytes = 0;
+            for (int i = 0; i < store.size(); i++) {
+                unsharedBytes += TaskStore.sizeOfString(store.getName(i));
+            }
+            return new DescriptionMemory(store.size(), store.descriptionBytes(), unsharedBytes);
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
     /**
      * Finds tasks whose description contains the given keyword (case-insensitive).
+     * Keywords of three or more characters are narrowed down with the trigram index, shorter keywords without
+     * whitespace with the token index; the remaining ones fall back to a scan. Candidates from an index are
+     * checked against the description, so the result is always that of a scan.
      *
      * @param keyword Keyword to search for.
      * @return A list of matching tasks paired with their 1-based indices in the current task list.
      */
     public List<IndexedTask> findByKeyword(String keyword) {
-        String key = keyword.toLowerCase();
-        return IntStream.range(0, tasks.size())
-                .filter(i -> tasks.get(i).getName().toLowerCase().contains(key))
-                .mapToObj(i -> new IndexedTask(i + 1, tasks.get(i)))
+        long stamp = acquireRead();
+        try {
+            String key = keyword.toLowerCase();
+            int[] candidates = trigramIndex.findCandidates(key);
+            if (candidates == null) {
+                candidates = tokenIndex.findContaining(key);
+            }
+            if (candidates == null) {
+                return scanByKeyword(key);
+            }
+            List<IndexedTask> matches = new ArrayList<>();
+            for (int ordinal : candidates) {
+                int position = positionOf(ordinal);
+                if (position >= 0 && store.getName(position).toLowerCase().contains(key)) {
+                    matches.add(new IndexedTask(position + INDEX_OFFSET, store.get(position)));
+                }
+            }
+            return matches;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the deadlines due in the given period, earliest first.
+     *
+     * @param from Start of the period, inclusive.
+     * @param to End of the period, exclusive.
+     * @return Matching deadlines paired with their 1-based indices.
+     */
+    public List<IndexedTask> findDeadlinesDue(LocalDateTime from, LocalDateTime to) {
+        long stamp = acquireRead();
+        try {
+            return collectDeadlinesDue(from, to);
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    private List<IndexedTask> collectDeadlinesDue(LocalDateTime from, LocalDateTime to) {
+        List<IndexedTask> matches = new ArrayList<>();
+        deadlineIndex.forEachBetween(EpochMinutes.of(from), EpochMinutes.of(to),
+                ordinal -> matches.add(indexedTaskOf(ordinal)));
+        return matches;
+    }
+
+    /**
+     * Finds the deadlines that are not done and were due before the given time, earliest first.
+     *
+     * @param now Current date/time.
+     * @return Overdue deadlines paired with their 1-based indices.
+     */
+    public List<IndexedTask> findOverdue(LocalDateTime now) {
+        long stamp = acquireRead();
+        try {
+            List<IndexedTask> matches = new ArrayList<>();
+            deadlineIndex.forEachBetween(Long.MIN_VALUE, EpochMinutes.of(now), ordinal -> {
+                IndexedTask match = indexedTaskOf(ordinal);
+                if (!match.task.isDone()) {
+                    matches.add(match);
+                }
+            });
+            return matches;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the next deadlines that are not done and are due at or after the given time, earliest first.
+     *
+     * @param now Current date/time.
+     * @param limit Maximum number of deadlines to return.
+     * @return Upcoming deadlines paired with their 1-based indices.
+     */
+    public List<IndexedTask> findUpcoming(LocalDateTime now, int limit) {
+        assert limit > 0 : "limit must be positive";
+        long stamp = acquireRead();
+        try {
+            List<IndexedTask> matches = new ArrayList<>();
+            deadlineIndex.forEachFrom(EpochMinutes.of(now), ordinal -> {
+                IndexedTask match = indexedTaskOf(ordinal);
+                if (!match.task.isDone()) {
+                    matches.add(match);
+                }
+                return matches.size() < limit;
+            });
+            return matches;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the events that overlap the given period, in order of start time.
+     * Events that end exactly when the period starts, or start exactly when it ends, do not overlap it.
+     *
+     * @param from Start of the period, inclusive.
+     * @param to End of the period, exclusive.
+     * @return Overlapping events paired with their 1-based indices.
+     */
+    public List<IndexedTask> findEventsDuring(LocalDateTime from, LocalDateTime to) {
+        long stamp = acquireRead();
+        try {
+            return collectEventsDuring(from, to);
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    private List<IndexedTask> collectEventsDuring(LocalDateTime from, LocalDateTime to) {
+        List<IndexedTask> matches = new ArrayList<>();
+        eventIndex.forEachOverlapping(EpochMinutes.of(from), EpochMinutes.of(to),
+                ordinal -> matches.add(indexedTaskOf(ordinal)));
+        return matches;
+    }
+
+    /**
+     * Finds the deadlines due and the events taking place in the given period, ordered by due or start time.
+     *
+     * @param from Start of the period, inclusive.
+     * @param to End of the period, exclusive.
+     * @return Matching tasks paired with their 1-based indices.
+     */
+    public List<IndexedTask> findScheduled(LocalDateTime from, LocalDateTime to) {
+        long stamp = acquireRead();
+        try {
+            List<IndexedTask> deadlines = collectDeadlinesDue(from, to);
+            List<IndexedTask> events = collectEventsDuring(from, to);
+            List<IndexedTask> merged = new ArrayList<>(deadlines.size() + events.size());
+            int d = 0;
+            int e = 0;
+            while (d < deadlines.size() || e < events.size()) {
+                boolean takeDeadline = e == events.size() || d < deadlines.size()
+                        && ((Deadline) deadlines.get(d).task).getByEpochMinutes()
+                                <= ((Event) events.get(e).task).getFromEpochMinutes();
+                merged.add(takeDeadline ? deadlines.get(d++) : events.get(e++));
+            }
+            return merged;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Finds every pair of events that overlap in time.
+     *
+     * <p>The events are swept in order of start time while the ones still running are kept in a heap ordered by
+     * end time. Each event overlaps exactly the running events that end after it starts, so the sweep costs
+     * O(n log n) plus the number of pairs and never compares events that do not overlap.</p>
+     *
+     * @return Overlapping pairs, the earlier-starting event first, ordered by the later event's index.
+     */
+    public List<EventConflict> findEventConflicts() {
+        long stamp = acquireRead();
+        try {
+            List<EventConflict> conflicts = new ArrayList<>();
+            PriorityQueue<IndexedTask> running = new PriorityQueue<>(
+                    Comparator.comparingLong((IndexedTask match) -> ((Event) match.task).getToEpochMinutes()));
+            eventIndex.forEachInOrder(ordinal -> {
+                IndexedTask current = indexedTaskOf(ordinal);
+                long start = ((Event) current.task).getFromEpochMinutes();
+                while (!running.isEmpty() && ((Event) running.peek().task).getToEpochMinutes() <= start) {
+                    running.poll();
+                }
+                for (IndexedTask other : running) {
+                    conflicts.add(new EventConflict(other, current));
+                }
+                running.add(current);
+            });
+            conflicts.sort(Comparator.comparingInt((EventConflict conflict) -> conflict.second.index1Based)
+                    .thenComparingInt(conflict -> conflict.first.index1Based));
+            return conflicts;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the stretches of the given period during which no event takes place.
+     * The events overlapping the period arrive from the interval tree in order of start time and are merged in
+     * one pass, so the cost follows the number of those events, not the size of the list.
+     *
+     * @param from Start of the period, inclusive.
+     * @param to End of the period, exclusive.
+     * @param minDuration Shortest free slot to report.
+     * @return Free slots in chronological order.
+     */
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        assert from.isBefore(to) : "period must not be empty";
+        long stamp = acquireRead();
+        try {
+            List<TimeSlot> slots = new ArrayList<>();
+            long[] busyUntil = {EpochMinutes.of(from)};
+            eventIndex.forEachOverlapping(EpochMinutes.of(from), EpochMinutes.of(to), ordinal -> {
+                Event event = (Event) store.get(positionOf(ordinal));
+                addSlotIfLongEnough(slots, busyUntil[0], event.getFromEpochMinutes(), minDuration);
+                busyUntil[0] = Math.max(busyUntil[0], event.getToEpochMinutes());
+            });
+            addSlotIfLongEnough(slots, busyUntil[0], EpochMinutes.of(to), minDuration);
+            return slots;
+        } finally {
+            releaseRead(stamp);
+        }
+    }
+
+    private static void addSlotIfLongEnough(List<TimeSlot> slots, long start, long end, Duration minDuration) {
+        if (start < end && Duration.ofMinutes(end - start).compareTo(minDuration) >= 0) {
+            slots.add(new TimeSlot(EpochMinutes.toDateTime(start), EpochMinutes.toDateTime(end)));
+        }
+    }
+
+    private IndexedTask indexedTaskOf(int ordinal) {
+        int position = positionOf(ordinal);
+        assert position >= 0 : "removed tasks must not be in the schedule indexes";
+        return new IndexedTask(position + INDEX_OFFSET, store.get(position));
+    }
+
+    private List<IndexedTask> scanByKeyword(String key) {
+        return IntStream.range(0, store.size())
+                .filter(i -> store.getName(i).toLowerCase().contains(key))
+                .mapToObj(i -> new IndexedTask(i + 1, store.get(i)))
                 .collect(Collectors.toList());
     }
 }
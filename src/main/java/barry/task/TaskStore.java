@@ -0,0 +1,102 @@
+package barry.task;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Represents the storage behind a {@link TaskList}: the tasks in list order, with their done state and ordinals.
+ * Ordinals grow along the list, so a store can find a task by its ordinal with a binary search.
+ *
+ * <p>A store is copy-on-write with respect to {@link #snapshot()}: once a snapshot has been handed out, later
+ * additions and removals must not show through it. The done state is not part of that promise.</p>
+ */
+interface TaskStore {
+    int STRING_HEADER_BYTES = 24;
+    int ARRAY_HEADER_BYTES = 16;
+    int OBJECT_ALIGNMENT = 8;
+
+    int size();
+
+    /**
+     * Returns the task at the given position. Depending on the store, this is either the stored instance or a
+     * view created on demand, so callers must change the done state through {@link #setDone(int, boolean)}.
+     *
+     * @param index 0-based position of the task.
+     * @return The task at that position.
+     */
+    Task get(int index);
+
+    /**
+     * Returns the description of the task at the given position without materializing the task.
+     *
+     * @param index 0-based position of the task.
+     * @return The description of the task.
+     */
+    String getName(int index);
+
+    /**
+     * Appends a task.
+     *
+     * @param task The task to append.
+     * @param ordinal Ordinal of the task, greater than that of every task in the store.
+     */
+    void add(Task task, int ordinal);
+
+    int ordinalAt(int index);
+
+    /**
+     * Returns the 0-based position of the task with the given ordinal, or a negative number if the store does not
+     * hold it.
+     *
+     * @param ordinal Ordinal of the task.
+     * @return Position of the task, or a negative number.
+     */
+    int positionOf(int ordinal);
+
+    void setDone(int index, boolean isDone);
+
+    /**
+     * Makes the task at the given position reuse the stored description of another task with an equal one.
+     *
+     * @param index 0-based position of the task whose description is dropped.
+     * @param sameAs 0-based position of a task with an equal description.
+     */
+    void shareName(int index, int sameAs);
+
+    /**
+     * Returns an estimate of the heap taken by the descriptions, counting shared storage once.
+     *
+     * @return Estimated bytes.
+     */
+    long descriptionBytes();
+
+    /**
+     * Removes the tasks at the given positions, keeping the order of the others.
+     *
+     * @param positions Set bits are the 0-based positions of the tasks to remove.
+     */
+    void removeAll(BitSet positions);
+
+    /**
+     * Returns a read-only view of the tasks as they are now, which later additions and removals do not affect.
+     *
+     * @return An unmodifiable snapshot of the task sequence.
+     */
+    List<Task> snapshot();
+
+    /**
+     * Returns an estimate of the heap taken by a string on a 64-bit JVM with compressed references, where a
+     * string whose characters all fit in Latin-1 keeps one byte per character.
+     *
+     * @param s The string.
+     * @return Estimated bytes for the string object and its array.
+     */
+    static long sizeOfString(String s) {
+        boolean isLatin1 = s.chars().allMatch(c -> c <= 0xFF);
+        return STRING_HEADER_BYTES + align(ARRAY_HEADER_BYTES + (long) s.length() * (isLatin1 ? 1 : 2));
+    }
+
+    static long align(long bytes) {
+        return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+}
@@ -0,0 +1,88 @@
+package barry.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an inverted index from the lower-case, whitespace-separated tokens of task descriptions to the
+ * ordinals of the tasks that contain them.
+ *
+ * <p>A keyword without whitespace can only occur inside a single token, so the tasks whose description contains
+ * it are exactly those holding a token that contains it. Looking a keyword up therefore scans the distinct
+ * tokens once instead of every description, and gives the same answer as a substring scan.</p>
+ */
+class TokenIndex {
+    private final Map<String, Postings> postingsByToken = new HashMap<>();
+
+    /**
+     * Indexes the tokens of a task description.
+     *
+     * @param ordinal Ordinal of the task, not smaller than that of any task indexed before.
+     * @param lowerCaseName Lower-case description of the task.
+     */
+    void add(int ordinal, String lowerCaseName) {
+        int length = lowerCaseName.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && Character.isWhitespace(lowerCaseName.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < length && !Character.isWhitespace(lowerCaseName.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                postingsByToken.computeIfAbsent(lowerCaseName.substring(start, end), token -> new Postings())
+                        .add(ordinal);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Removes every token, e.g. before the index is rebuilt without removed tasks.
+     */
+    void clear() {
+        postingsByToken.clear();
+    }
+
+    /**
+     * Returns the ordinals of the indexed tasks whose description contains the keyword, in ascending order.
+     * Returns null when the index cannot answer, i.e. for an empty keyword or one that contains whitespace.
+     *
+     * @param lowerCaseKeyword Lower-case keyword to look up.
+     * @return Matching ordinals, or null if the caller must scan the descriptions instead.
+     */
+    int[] findContaining(String lowerCaseKeyword) {
+        if (!canServe(lowerCaseKeyword)) {
+            return null;
+        }
+        List<Postings> matches = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : postingsByToken.entrySet()) {
+            if (entry.getKey().contains(lowerCaseKeyword)) {
+                matches.add(entry.getValue());
+            }
+        }
+        return Postings.union(matches);
+    }
+
+    /**
+     * Returns whether {@link #findContaining(String)} can answer for the keyword.
+     *
+     * @param lowerCaseKeyword Lower-case keyword.
+     * @return true if the keyword is non-empty and free of whitespace.
+     */
+    static boolean canServe(String lowerCaseKeyword) {
+        if (lowerCaseKeyword.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < lowerCaseKeyword.length(); i++) {
+            if (Character.isWhitespace(lowerCaseKeyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
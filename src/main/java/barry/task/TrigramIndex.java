@@ -0,0 +1,72 @@
+package barry.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents an index from every run of three consecutive characters (trigram) in the lower-case task
+ * descriptions to the ordinals of the tasks that contain it.
+ *
+ * <p>A description that contains a keyword also contains each of the keyword's trigrams, so intersecting their
+ * posting lists yields a superset of the matches. The caller still has to check each candidate, e.g. "abcbcd"
+ * holds every trigram of "abcd" without containing it.</p>
+ */
+class TrigramIndex {
+    static final int GRAM_LENGTH = 3;
+    private final Map<Long, Postings> postingsByGram = new HashMap<>();
+
+    /**
+     * Indexes the trigrams of a task description.
+     *
+     * @param ordinal Ordinal of the task, not smaller than that of any task indexed before.
+     * @param lowerCaseName Lower-case description of the task.
+     */
+    void add(int ordinal, String lowerCaseName) {
+        for (int start = 0; start + GRAM_LENGTH <= lowerCaseName.length(); start++) {
+            postingsByGram.computeIfAbsent(gramAt(lowerCaseName, start), gram -> new Postings()).add(ordinal);
+        }
+    }
+
+    /**
+     * Removes every trigram, e.g. before the index is rebuilt without removed tasks.
+     */
+    void clear() {
+        postingsByGram.clear();
+    }
+
+    /**
+     * Returns, in ascending order, the ordinals of the indexed tasks whose description holds every trigram of the
+     * keyword. Returns null when the keyword is too short to have a trigram.
+     *
+     * @param lowerCaseKeyword Lower-case keyword to look up.
+     * @return Candidate ordinals, or null if the index cannot narrow the search.
+     */
+    int[] findCandidates(String lowerCaseKeyword) {
+        if (lowerCaseKeyword.length() < GRAM_LENGTH) {
+            return null;
+        }
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int start = 0; start + GRAM_LENGTH <= lowerCaseKeyword.length(); start++) {
+            grams.add(gramAt(lowerCaseKeyword, start));
+        }
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (long gram : grams) {
+            Postings postings = postingsByGram.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            lists.add(postings);
+        }
+        return Postings.intersect(lists);
+    }
+
+    private static long gramAt(String s, int start) {
+        return (long) s.charAt(start) << (2 * Character.SIZE)
+                | (long) s.charAt(start + 1) << Character.SIZE
+                | s.charAt(start + 2);
+    }
+}
@@ -1,5 +1,9 @@
 package barry.ui;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -15,6 +19,9 @@ import barry.task.TaskList;
  */
 public class Ui {
     private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
+    private static final long BYTES_PER_KIB = 1024;
 
     /**
      * Displays the welcome message at the start of the program.
@@ -46,15 +53,26 @@ public class Ui {
     public String formatHelp() {
         return formatLines(
                 "Navigation commands:",
-                "list",
+                "list [done|pending]",
+                "count",
                 "help",
                 "todo <description>",
                 "deadline <description> /by yyyy-MM-dd HHmm",
-                "event <description> /from yyyy-MM-dd HHmm /to yyyy-MM-dd HHmm",
-                "mark <task number> [more task numbers...]",
-                "unmark <task number> [more task numbers...]",
-                "delete <task number> [more task numbers...]",
+                "event <description> /from yyyy-MM-dd HHmm /to yyyy-MM-dd HHmm [/check]",
+                "mark <task number, range (e.g. 3-7) or #id> [more...]",
+                "unmark <task number, range (e.g. 3-7) or #id> [more...]",
+                "delete <task number, range (e.g. 3-7) or #id> [more...]",
                 "find <keyword>",
+                "due <yyyy-MM-dd>",
+                "overdue",
+                "upcoming [count]",
+                "on <yyyy-MM-dd>",
+                "overlaps",
+                "free <yyyy-MM-dd> [min minutes]",
+                "free yyyy-MM-dd HHmm /to yyyy-MM-dd HHmm [min minutes]",
+                "memory",
+                "undo",
+                "redo",
                 "bye"
         );
     }
@@ -103,6 +121,127 @@ public class Ui {
         );
     }
 
+    /**
+     * Displays a message indicating an event was added, followed by the events it overlaps with.
+     *
+     * @param task The event that was added.
+     * @param size The updated number of tasks in the list.
+     * @param conflicts The other events whose times overlap the new one, with their indexes.
+     */
+    public String formatEventAdded(Task task, int size, List<TaskList.IndexedTask> conflicts) {
+        assert conflicts != null : "conflicts must not be null";
+        String added = formatTaskAdded(task, size);
+        if (conflicts.isEmpty()) {
+            return added + LINE_SEPARATOR + "Clear waters: it overlaps no other event.";
+        }
+        StringBuilder sb = new StringBuilder(added).append(LINE_SEPARATOR);
+        sb.append("Heads up, it overlaps with:").append(LINE_SEPARATOR);
+        appendMatches(sb, conflicts);
+        return sb.toString().trim();
+    }
+
+    /**
+     * Displays every pair of events whose times overlap.
+     *
+     * @param conflicts The overlapping pairs of events.
+     */
+    public String formatEventConflicts(List<TaskList.EventConflict> conflicts) {
+        assert conflicts != null : "conflicts must not be null";
+        if (conflicts.isEmpty()) {
+            return formatLines("No overlapping events on the chart.");
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Overlapping events:").append(LINE_SEPARATOR);
+        String body = conflicts.stream()
+                .map(conflict -> conflict.first.index1Based + "." + conflict.first.task
+                        + " overlaps " + conflict.second.index1Based + "." + conflict.second.task)
+                .collect(Collectors.joining(LINE_SEPARATOR, "", LINE_SEPARATOR));
+        sb.append(body);
+        return sb.toString().trim();
+    }
+
+    /**
+     * Displays the free slots found between events in a period.
+     *
+     * @param from Start of the period that was searched.
+     * @param to End of the period that was searched.
+     * @param slots The free slots, in chronological order.
+     */
+    public String formatFreeSlots(LocalDateTime from, LocalDateTime to, List<TaskList.TimeSlot> slots) {
+        assert slots != null : "slots must not be null";
+        String period = from.format(TIME_FORMAT) + " and " + to.format(TIME_FORMAT);
+        if (slots.isEmpty()) {
+            return formatLines("No free time between " + period + ".");
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Open waters between ").append(period).append(":").append(LINE_SEPARATOR);
+        String body = slots.stream()
+                .map(slot -> slot.start.format(TIME_FORMAT) + " to " + slot.end.format(TIME_FORMAT)
+                        + " (" + formatDuration(Duration.between(slot.start, slot.end)) + ")")
+                .collect(Collectors.joining(LINE_SEPARATOR, "", LINE_SEPARATOR));
+        sb.append(body);
+        return sb.toString().trim();
+    }
+
+    /**
+     * Displays how much heap the task descriptions take and how much sharing and packing them saves.
+     *
+     * @param memory The measured description memory.
+     */
+    public String formatDescriptionMemory(TaskList.DescriptionMemory memory) {
+        assert memory != null : "memory must not be null";
+        long saved = memory.unsharedBytes - memory.bytesUsed;
+        long percent = memory.unsharedBytes == 0 ? 0 : Math.round(100.0 * saved / memory.unsharedBytes);
+        return formatLines(
+                "Cargo report for " + memory.taskCount + " task(s):",
+                "Descriptions take about " + formatBytes(memory.bytesUsed) + ".",
+                "One string per task would take " + formatBytes(memory.unsharedBytes) + ", so we save "
+                        + formatBytes(saved) + " (" + percent + "%).");
+    }
+
+    /**
+     * Displays a message indicating the last change to the list was undone.
+     *
+     * @param size The number of tasks in the list after the undo.
+     */
+    public String formatUndone(int size) {
+        return formatLines(
+                "Hard about! I've undone your last change.",
+                "You now have " + size + " tasks on the chart."
+        );
+    }
+
+    /**
+     * Displays a message indicating the last undone change to the list was made again.
+     *
+     * @param size The number of tasks in the list after the redo.
+     */
+    public String formatRedone(int size) {
+        return formatLines(
+                "Back on course! I've redone your last undone change.",
+                "You now have " + size + " tasks on the chart."
+        );
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < BYTES_PER_KIB) {
+            return bytes + " B";
+        }
+        if (bytes < BYTES_PER_KIB * BYTES_PER_KIB) {
+            return String.format("%.1f KiB", (double) bytes / BYTES_PER_KIB);
+        }
+        return String.format("%.1f MiB", (double) bytes / (BYTES_PER_KIB * BYTES_PER_KIB));
+    }
+
+    private static String formatDuration(Duration duration) {
+        long hours = duration.toHours();
+        int minutes = duration.toMinutesPart();
+        if (hours == 0) {
+            return minutes + "m";
+        }
+        return minutes == 0 ? hours + "h" : hours + "h " + minutes + "m";
+    }
+
     /**
      * Displays a message indicating tasks were deleted successfully.
      *
@@ -151,7 +290,7 @@ public class Ui {
     }
 
     /**
-     * Displays the tasks currently stored in the task list.
+     * Displays the tasks currently stored in the task list, each with its number and ID.
      *
      * @param tasks The task list to display.
      */
@@ -168,6 +307,33 @@ public class Ui {
         return sb.toString().trim();
     }
 
+    /**
+     * Displays the tasks that are done, or those still pending.
+     *
+     * @param isDone Whether the tasks shown are the done ones.
+     * @param matches The tasks in that state, with their indexes.
+     */
+    public String formatFilteredList(boolean isDone, List<TaskList.IndexedTask> matches) {
+        if (isDone) {
+            return formatMatches("Completed charted tasks:", "No completed tasks on the chart.", matches);
+        }
+        return formatMatches("Pending charted tasks:", "No pending tasks. All hands may rest!", matches);
+    }
+
+    /**
+     * Displays how many tasks there are, and how many of them are done and still pending.
+     *
+     * @param size The number of tasks in the list.
+     * @param doneCount The number of those tasks that are done.
+     */
+    public String formatTaskCount(int size, int doneCount) {
+        assert doneCount >= 0 && doneCount <= size : "done count must be within the list size";
+        return formatLines(
+                "You have " + size + " tasks on the chart.",
+                doneCount + " done, " + (size - doneCount) + " pending."
+        );
+    }
+
     /**
      * Displays the list of tasks that matches the keyword specified.
      *
@@ -185,11 +351,65 @@ public class Ui {
         return sb.toString().trim();
     }
 
+    /**
+     * Displays the deadlines due on a given day.
+     *
+     * @param day The day that was queried.
+     * @param matches The deadlines due that day, with their indexes.
+     */
+    public String formatDueResults(LocalDate day, List<TaskList.IndexedTask> matches) {
+        String date = day.format(DAY_FORMAT);
+        return formatMatches("Deadlines due on " + date + ":", "Nothing due on " + date + ".", matches);
+    }
+
+    /**
+     * Displays the deadlines that are past due and not yet done.
+     *
+     * @param matches The overdue deadlines, with their indexes.
+     */
+    public String formatOverdueResults(List<TaskList.IndexedTask> matches) {
+        return formatMatches("Overdue tasks, Captain:", "Nothing overdue. Fair winds!", matches);
+    }
+
+    /**
+     * Displays the next deadlines that are not yet done.
+     *
+     * @param matches The upcoming deadlines, with their indexes.
+     */
+    public String formatUpcomingResults(List<TaskList.IndexedTask> matches) {
+        return formatMatches("Upcoming deadlines:", "No upcoming deadlines on the horizon.", matches);
+    }
+
+    /**
+     * Displays the deadlines and events on a given day.
+     *
+     * @param day The day that was queried.
+     * @param matches The tasks scheduled that day, with their indexes.
+     */
+    public String formatScheduleResults(LocalDate day, List<TaskList.IndexedTask> matches) {
+        String date = day.format(DAY_FORMAT);
+        return formatMatches("On " + date + ":", "Nothing charted for " + date + ".", matches);
+    }
+
+    private String formatMatches(String header, String emptyMessage, List<TaskList.IndexedTask> matches) {
+        assert matches != null : "matches must not be null";
+        if (matches.isEmpty()) {
+            return formatLines(emptyMessage);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(header).append(LINE_SEPARATOR);
+        appendMatches(sb, matches);
+        return sb.toString().trim();
+    }
+
     private void appendTaskList(StringBuilder sb, TaskList tasks) {
         assert sb != null : "string builder must not be null";
         assert tasks != null : "tasks must not be null";
         String body = IntStream.range(0, tasks.size())
-                    .mapToObj(i -> (i + 1) + "." + tasks.getTask(i))
+                    .mapToObj(i -> {
+                        Task task = tasks.getTask(i);
+                        return (i + 1) + "." + task + " (#" + task.getId() + ")";
+                    })
                     .collect(Collectors.joining(LINE_SEPARATOR, "", LINE_SEPARATOR));
         sb.append(body);
     }
@@ -5,10 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import barry.storage.StorageOptions;
+
 class BarryTest {
 
     @TempDir
@@ -89,4 +94,134 @@ class BarryTest {
         assertTrue(response.toLowerCase().contains("extra arguments"));
         assertTrue(barry.wasLastResponseError());
     }
+
+    @Test
+    void getResponse_markOutOfOrderAndOutOfRange_listsInOrderAndNamesBadNumber() {
+        Barry barry = new Barry(tempDir.resolve("barry-order.txt").toString());
+
+        String marked = barry.getResponse("mark 3 1");
+        String outOfRange = barry.getResponse("unmark 2 9 7");
+
+        assertTrue(marked.indexOf("Learn the controls") < marked.indexOf("Plot your week"));
+        assertTrue(barry.wasLastResponseError());
+        assertTrue(outOfRange.contains("Task number 9 is out of range"));
+    }
+
+    @Test
+    void getResponse_markThenRestart_keepsJournaledState() {
+        String file = tempDir.resolve("barry-journal-restart.txt").toString();
+        Barry barry = new Barry(file);
+        barry.getResponse("todo read book");
+        barry.getResponse("mark 4");
+        barry.getResponse("delete 1");
+
+        Barry restarted = new Barry(file);
+        String response = restarted.getResponse("list");
+
+        assertTrue(response.contains("3.[T][X] read book"));
+        assertFalse(response.contains("Learn the controls"));
+    }
+
+    @Test
+    void getResponse_undoAndRedo_restoreAndPersistEarlierLists() {
+        String file = tempDir.resolve("barry-undo.txt").toString();
+        Barry barry = new Barry(file);
+        barry.getResponse("todo read book");
+        barry.getResponse("mark 4");
+        barry.getResponse("delete 1");
+
+        assertTrue(barry.getResponse("undo").contains("4 tasks"));
+        barry.getResponse("undo");
+        assertTrue(barry.getResponse("redo").contains("redone"));
+        String restartedList = new Barry(file).getResponse("list");
+        barry.getResponse("todo write report");
+        String redoResponse = barry.getResponse("redo");
+
+        assertTrue(restartedList.contains("1.[T][ ] Learn the controls"));
+        assertTrue(restartedList.contains("4.[T][X] read book"));
+        assertTrue(redoResponse.contains("nothing to redo"));
+        assertTrue(barry.wasLastResponseError());
+    }
+
+    @Test
+    void getResponse_listByDoneStateAndCount_showOnlyMatchingTasks() {
+        Barry barry = new Barry(tempDir.resolve("barry-done.txt").toString());
+        barry.getResponse("todo read book");
+        barry.getResponse("mark 1 4");
+
+        String done = barry.getResponse("list done");
+        String pending = barry.getResponse("list pending");
+        String count = barry.getResponse("count");
+
+        assertTrue(done.contains("4.[T][X] read book"));
+        assertFalse(done.contains("2.") || done.contains("3."));
+        assertTrue(pending.contains("2.") && pending.contains("3."));
+        assertFalse(pending.contains("read book"));
+        assertTrue(count.contains("4 tasks") && count.contains("2 done, 2 pending"));
+        barry.getResponse("unmark 1 4");
+        assertTrue(barry.getResponse("list done").contains("No completed tasks"));
+    }
+
+    @Test
+    void getResponse_markAndDeleteById_followTaskAcrossDeletesAndRestart() {
+        String file = tempDir.resolve("barry-ids.txt").toString();
+        Barry barry = new Barry(file);
+        barry.getResponse("todo read book");
+        barry.getResponse("delete 1 2");
+
+        assertTrue(barry.getResponse("list").contains("2.[T][ ] read book (#4)"));
+        assertTrue(barry.getResponse("mark #4").contains("read book"));
+        Barry restarted = new Barry(file);
+        String duplicate = restarted.getResponse("delete 2 #4");
+        assertTrue(restarted.wasLastResponseError());
+        String unknown = restarted.getResponse("delete #1");
+        restarted.getResponse("delete #4");
+        String list = restarted.getResponse("list");
+
+        assertTrue(duplicate.contains("given twice"));
+        assertTrue(unknown.contains("No task has the ID #1."));
+        assertTrue(list.contains("1.[E][ ] Plot your week"));
+        assertFalse(list.contains("read book"));
+    }
+
+    @Test
+    void getResponse_byeWithWriteBehind_flushesPendingChanges() {
+        String file = tempDir.resolve("barry-write-behind.txt").toString();
+        Barry barry = new Barry(file, StorageOptions.defaults().withJournal(true).withWriteBehind(60_000, 1_000));
+        barry.getResponse("todo read book");
+        barry.getResponse("bye");
+
+        String response = new Barry(file).getResponse("list");
+
+        assertTrue(response.contains("[T][ ] read book"));
+    }
+
+    @Test
+    void getResponse_dateQueriesWithFixedClock_listScheduledTasks() {
+        Clock clock = Clock.fixed(Instant.parse("2027-01-01T00:00:00Z"), ZoneOffset.UTC);
+        Barry barry = new Barry(tempDir.resolve("barry-date-queries.txt").toString(),
+                StorageOptions.defaults(), clock);
+
+        String overdue = barry.getResponse("overdue");
+        String upcoming = barry.getResponse("upcoming");
+        String onDay = barry.getResponse("on 2026-12-20");
+
+        assertTrue(overdue.contains("2.[D][ ] Submit your first real task"));
+        assertTrue(upcoming.toLowerCase().contains("no upcoming deadlines"));
+        assertTrue(onDay.contains("3.[E][ ] Plot your week"));
+        assertFalse(onDay.contains("Submit your first real task"));
+    }
+
+    @Test
+    void getResponse_eventWithCheck_reportsOverlappingEvents() {
+        Barry barry = new Barry(tempDir.resolve("barry-conflicts.txt").toString());
+
+        String response = barry.getResponse("event briefing /from 2026-12-20 0930 /to 2026-12-20 1100 /check");
+        String overlaps = barry.getResponse("overlaps");
+
+        assertTrue(response.contains("overlaps with"));
+        assertTrue(response.contains("3.[E][ ] Plot your week"));
+        assertTrue(overlaps.contains("3.[E][ ] Plot your week"));
+        assertTrue(overlaps.contains(" overlaps 4.[E][ ] briefing"));
+    }
 }
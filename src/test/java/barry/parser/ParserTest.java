@@ -2,10 +2,14 @@ package barry.parser;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 import org.junit.jupiter.api.Test;
 
 import barry.exception.BarryException;
@@ -54,7 +58,86 @@ class ParserTest {
         ParsedInput p = Parser.parse("mark 1 3 5");
 
         assertEquals(Command.MARK, p.type);
-        assertArrayEquals(new int[]{1, 3, 5}, p.taskNumbers);
+        assertArrayEquals(new int[]{1, 3, 5}, p.taskNumbers.stream().toArray());
+    }
+
+    @Test
+    void parseDelete_rangesAndNumbers_setsEveryNumber() throws Exception {
+        ParsedInput p = Parser.parse("delete 10-12 40 50-50");
+
+        assertEquals(Command.DELETE, p.type);
+        assertArrayEquals(new int[]{10, 11, 12, 40, 50}, p.taskNumbers.stream().toArray());
+    }
+
+    @Test
+    void parseMark_overlappingRanges_throwsBarryException() {
+        BarryException e = assertThrows(BarryException.class, () -> Parser
+                .parse("mark 1-5 5-9"));
+
+        assertTrue(e.getMessage().toLowerCase().contains("duplicate"));
+    }
+
+    @Test
+    void parseMark_malformedRanges_throwsBarryException() {
+        BarryException reversed = assertThrows(BarryException.class, () -> Parser.parse("mark 7-3"));
+        BarryException open = assertThrows(BarryException.class, () -> Parser.parse("mark 3-"));
+        BarryException negative = assertThrows(BarryException.class, () -> Parser.parse("mark -3"));
+
+        assertTrue(reversed.getMessage().toLowerCase().contains("low to high"));
+        assertTrue(open.getMessage().toLowerCase().contains("integer"));
+        assertTrue(negative.getMessage().toLowerCase().contains("positive"));
+    }
+
+    @Test
+    void parseDue_date_coversWholeDay() throws Exception {
+        ParsedInput p = Parser.parse("due 2026-02-28");
+
+        assertEquals(Command.DUE, p.type);
+        assertEquals(LocalDateTime.of(2026, 2, 28, 0, 0), p.start);
+        assertEquals(LocalDateTime.of(2026, 3, 1, 0, 0), p.end);
+    }
+
+    @Test
+    void parseEvent_trailingCheckFlag_requestsConflictCheck() throws Exception {
+        ParsedInput checked = Parser.parse("event sync /from 2026-01-30 1400 /to 2026-01-30 1500 /check");
+        ParsedInput unchecked = Parser.parse("event sync /from 2026-01-30 1400 /to 2026-01-30 1500");
+
+        assertTrue(checked.isConflictCheck);
+        assertEquals(LocalDateTime.of(2026, 1, 30, 15, 0), checked.end);
+        assertFalse(unchecked.isConflictCheck);
+    }
+
+    @Test
+    void parseFree_dayOrRangeWithMinimum_parsesPeriod() throws Exception {
+        ParsedInput day = Parser.parse("free 2026-03-10");
+        ParsedInput range = Parser.parse("free 2026-03-10 0900 /to 2026-03-12 1800 45");
+
+        assertEquals(LocalDateTime.of(2026, 3, 10, 0, 0), day.start);
+        assertEquals(LocalDateTime.of(2026, 3, 11, 0, 0), day.end);
+        assertEquals(Duration.ofMinutes(1), day.minDuration);
+        assertEquals(LocalDateTime.of(2026, 3, 10, 9, 0), range.start);
+        assertEquals(LocalDateTime.of(2026, 3, 12, 18, 0), range.end);
+        assertEquals(Duration.ofMinutes(45), range.minDuration);
+        assertThrows(BarryException.class, () -> Parser.parse("free 2026-03-10 1800 /to 2026-03-10 0900"));
+        assertThrows(BarryException.class, () -> Parser.parse("free 2026-03-10 0"));
+    }
+
+    @Test
+    void parseUpcoming_withAndWithoutCount_parsesCount() throws Exception {
+        assertEquals(3, Parser.parse("upcoming 3").count);
+        assertEquals(5, Parser.parse("upcoming").count);
+
+        BarryException e = assertThrows(BarryException.class, () -> Parser.parse("upcoming 0"));
+        assertTrue(e.getMessage().toLowerCase().contains("positive"));
+    }
+
+    @Test
+    void parseOn_invalidDate_throwsBarryException() {
+        BarryException invalid = assertThrows(BarryException.class, () -> Parser.parse("on 2026-02-30"));
+        BarryException missing = assertThrows(BarryException.class, () -> Parser.parse("on"));
+
+        assertTrue(invalid.getMessage().toLowerCase().contains("invalid date"));
+        assertTrue(missing.getMessage().contains("yyyy-MM-dd"));
     }
 
     @Test
@@ -119,6 +202,32 @@ class ParserTest {
         assertEquals(Command.BYE, p.type);
     }
 
+    @Test
+    void parseMemory_withAndWithoutArguments_parsesOrThrows() throws Exception {
+        assertEquals(Command.MEMORY, Parser.parse("memory").type);
+
+        BarryException e = assertThrows(BarryException.class, () -> Parser.parse("memory all"));
+        assertTrue(e.getMessage().toLowerCase().contains("extra arguments"));
+    }
+
+    @Test
+    void parseUndoAndRedo_withAndWithoutArguments_parsesOrThrows() throws Exception {
+        assertEquals(Command.UNDO, Parser.parse("undo").type);
+        assertEquals(Command.REDO, Parser.parse(" redo ").type);
+
+        assertThrows(BarryException.class, () -> Parser.parse("undo 2"));
+    }
+
+    @Test
+    void parseListAndCount_withDoneStateFilter_parsesFilter() throws Exception {
+        assertEquals(ListFilter.ALL, Parser.parse("list").listFilter);
+        assertEquals(ListFilter.DONE, Parser.parse("list  DONE ").listFilter);
+        assertEquals(ListFilter.PENDING, Parser.parse("list pending").listFilter);
+        assertEquals(Command.COUNT, Parser.parse("count").type);
+
+        assertThrows(BarryException.class, () -> Parser.parse("count done"));
+    }
+
     @Test
     void parseList_withExtraArguments_throwsBarryException() {
         BarryException e = assertThrows(BarryException.class, () -> Parser
@@ -148,7 +257,20 @@ class ParserTest {
         ParsedInput p = Parser.parse("mark   1    2");
 
         assertEquals(Command.MARK, p.type);
-        assertArrayEquals(new int[]{1, 2}, p.taskNumbers);
+        assertArrayEquals(new int[]{1, 2}, p.taskNumbers.stream().toArray());
+    }
+
+    @Test
+    void parseDelete_taskIdsAndNumbers_parsesBothOrThrows() throws Exception {
+        ParsedInput p = Parser.parse("delete #12 3 #9000000000");
+
+        assertArrayEquals(new int[]{3}, p.taskNumbers.stream().toArray());
+        assertArrayEquals(new long[]{12, 9_000_000_000L}, p.taskIds);
+        assertEquals(0, Parser.parse("mark 1").taskIds.length);
+        assertTrue(assertThrows(BarryException.class, () -> Parser.parse("mark #0")).getMessage()
+                .contains("positive"));
+        assertThrows(BarryException.class, () -> Parser.parse("unmark #"));
+        assertThrows(BarryException.class, () -> Parser.parse("delete #3 #3"));
     }
 
     @Test
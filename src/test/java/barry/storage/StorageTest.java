@@ -1,12 +1,20 @@
 package barry.storage;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -15,6 +23,7 @@ import barry.exception.BarryException;
 import barry.task.Deadline;
 import barry.task.Event;
 import barry.task.Task;
+import barry.task.TaskChange;
 import barry.task.TaskList;
 import barry.task.ToDo;
 
@@ -28,7 +37,7 @@ class StorageTest {
         LocalDateTime by = LocalDateTime.of(2026, 1, 30, 14, 0);
 
         Task original = new Deadline("return book", by);
-        original.mark();
+        original.restoreDoneState(true);
 
         String line = storage.taskToLine(original);
         Task parsed = storage.parseLineToTasks(line);
@@ -83,6 +92,36 @@ class StorageTest {
                 .parseLineToTasks("D | 0 | return book"));
     }
 
+    @Test
+    void parseLine_irregularSeparatorsAndTrailingField_parsesTrimmedFields() throws Exception {
+        Storage storage = new Storage("./data/test.txt");
+
+        Task parsed = storage.parseLineToTasks("T|1\t|  read book  | ");
+
+        assertTrue(parsed instanceof ToDo);
+        assertTrue(parsed.isDone());
+        assertEquals("read book", parsed.getName());
+    }
+
+    @Test
+    void parseLine_dayPastEndOfMonth_resolvedLikeFormatter() throws Exception {
+        Storage storage = new Storage("./data/test.txt");
+
+        Deadline parsed = (Deadline) storage.parseLineToTasks("D | 0 | return book | 2023-02-30 1200");
+
+        assertEquals(LocalDateTime.of(2023, 2, 28, 12, 0), parsed.getBy());
+    }
+
+    @Test
+    void parseLine_invalidEventDate_throwsDateTimeError() {
+        Storage storage = new Storage("./data/test.txt");
+        String line = "E | 0 | meeting | 2026-01-30 1400 | 2026-13-30 1600";
+
+        BarryException e = assertThrows(BarryException.class, () -> storage.parseLineToTasks(line));
+
+        assertEquals("Corrupted date/time in data file line: " + line, e.getMessage());
+    }
+
     @Test
     void dataFileExists_beforeAndAfterSave_reflectsState() throws Exception {
         Path file = tempDir.resolve("barry-storage-exists.txt");
@@ -103,7 +142,7 @@ class StorageTest {
 
         Task todo = new ToDo("read");
         Task deadline = new Deadline("submit", LocalDateTime.of(2026, 2, 1, 10, 0));
-        deadline.mark();
+        deadline.restoreDoneState(true);
         Task event = new Event("meeting", LocalDateTime.of(2026, 2, 1, 12, 0),
                 LocalDateTime.of(2026, 2, 1, 13, 0));
         toSave.addTask(todo);
@@ -120,4 +159,566 @@ class StorageTest {
         assertTrue(loaded.get(2) instanceof Event);
         assertEquals("read", loaded.get(0).getName());
     }
+
+    @Test
+    void load_headerBlankLinesAndCrlfEndings_skipsNonTaskLines() throws Exception {
+        Path file = tempDir.resolve("barry-storage-crlf.txt");
+        Files.writeString(file, "# gen 3\r\nT | 0 | read\r\n\r\n   \r\n# note\r\nD | 1 | submit | 2026-02-01 1000\r\n");
+        Storage storage = new Storage(file.toString());
+
+        ArrayList<Task> loaded = storage.load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("read", loaded.get(0).getName());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals(LocalDateTime.of(2026, 2, 1, 10, 0), ((Deadline) loaded.get(1)).getBy());
+    }
+
+    @Test
+    void parallelLoad_manySmallChunks_matchesSequentialOrder() throws Exception {
+        Path file = tempDir.resolve("barry-parallel.txt");
+        StringBuilder contents = new StringBuilder("# gen 7\n");
+        for (int i = 0; i < 500; i++) {
+            String line = i % 2 == 0 ? "T | 0 | todo " + i : "D | 1 | déjà vu " + i + " | 2026-02-01 1000";
+            contents.append(line).append('\n');
+        }
+        Files.writeString(file, contents.toString());
+        ArrayList<Task> sequential = new Storage(file.toString()).load();
+
+        ArrayList<Task> parallel = ParallelTaskLoader.load(file, ForkJoinPool.commonPool(), 64);
+        ArrayList<Task> viaStorage = new Storage(file.toString(),
+                StorageOptions.defaults().withParallelLoadThreshold(1)).load();
+
+        assertEquals(500, parallel.size());
+        assertEquals(500, viaStorage.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).toString(), parallel.get(i).toString());
+            assertEquals(sequential.get(i).toString(), viaStorage.get(i).toString());
+        }
+    }
+
+    @Test
+    void parallelLoad_corruptedLinesInSeveralChunks_reportsEarliestLine() throws Exception {
+        Path file = tempDir.resolve("barry-parallel-corrupt.txt");
+        StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            contents.append(i == 120 || i == 150 ? "T | 7 | broken " + i : "T | 0 | todo " + i).append('\n');
+        }
+        Files.writeString(file, contents.toString());
+
+        BarryException e = assertThrows(BarryException.class, () -> ParallelTaskLoader.load(file,
+                ForkJoinPool.commonPool(), 32));
+
+        assertEquals("Corrupted done flag in line: T | 7 | broken 120", e.getMessage());
+    }
+
+    @Test
+    void journalEnabled_saveAfterLoad_appendsWithoutRewritingSnapshot() throws Exception {
+        Path file = tempDir.resolve("barry-journal-append.txt");
+        Storage storage = new Storage(file.toString(), StorageOptions.defaults().withJournal(true));
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new ToDo("read"));
+        storage.save(tasks);
+        String snapshot = Files.readString(file);
+
+        tasks.addTask(new ToDo("write"));
+        tasks.markTask(0);
+        storage.save(tasks);
+
+        assertEquals(snapshot, Files.readString(file));
+        assertTrue(Files.exists(tempDir.resolve("barry-journal-append.txt.journal")));
+    }
+
+    @Test
+    void journalEnabled_load_replaysJournalOnTopOfSnapshot() throws Exception {
+        Path file = tempDir.resolve("barry-journal-replay.txt");
+        StorageOptions options = StorageOptions.defaults().withJournal(true);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new ToDo("a"));
+        tasks.addTask(new ToDo("b"));
+        storage.save(tasks);
+
+        tasks.addTask(new Deadline("c", LocalDateTime.of(2026, 2, 1, 10, 0)));
+        tasks.markTask(2);
+        tasks.removeTask(0);
+        tasks.unmarkTask(1);
+        tasks.markTask(0);
+        storage.save(tasks);
+
+        ArrayList<Task> loaded = new Storage(file.toString(), options).load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("b", loaded.get(0).getName());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("c", loaded.get(1).getName());
+        assertTrue(!loaded.get(1).isDone());
+    }
+
+    @Test
+    void plainSave_afterJournaledRun_foldsJournalIntoSnapshot() throws Exception {
+        Path file = tempDir.resolve("barry-journal-fold.txt");
+        Storage journaled = new Storage(file.toString(), StorageOptions.defaults().withJournal(true));
+        TaskList tasks = new TaskList(journaled.load());
+        tasks.addTask(new ToDo("a"));
+        journaled.save(tasks);
+        tasks.addTask(new ToDo("b"));
+        journaled.save(tasks);
+
+        Storage plain = new Storage(file.toString());
+        TaskList reloaded = new TaskList(plain.load());
+        plain.save(reloaded);
+
+        assertTrue(!Files.exists(tempDir.resolve("barry-journal-fold.txt.journal")));
+        assertEquals(2, new Storage(file.toString()).load().size());
+    }
+
+    @Test
+    void journalPastThreshold_compactsIntoSnapshotAndKeepsLaterChanges() throws Exception {
+        Path file = tempDir.resolve("barry-compaction.txt");
+        StorageOptions options = StorageOptions.defaults().withJournal(true).withCompactionThreshold(3, 0);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new ToDo("a"));
+        storage.save(tasks);
+
+        for (String name : new String[] {"b", "c", "d"}) {
+            tasks.addTask(new ToDo(name));
+            storage.save(tasks);
+        }
+        tasks.markTask(0);
+        storage.save(tasks);
+        storage.awaitCompaction();
+
+        String snapshot = Files.readString(file);
+        assertTrue(snapshot.contains("T | 0 | d"));
+        assertTrue(snapshot.contains("T | 0 | a") || snapshot.contains("T | 1 | a"));
+        assertTrue(!Files.exists(tempDir.resolve("barry-compaction.txt.journal.1")));
+
+        ArrayList<Task> loaded = new Storage(file.toString(), options).load();
+        assertEquals(4, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("d", loaded.get(3).getName());
+    }
+
+    @Test
+    void load_interruptedCompaction_replaysRotatedSegmentThenActiveJournal() throws Exception {
+        Path file = tempDir.resolve("barry-interrupted.txt");
+        Files.writeString(file, "# gen 1" + System.lineSeparator() + "T | 0 | a" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("barry-interrupted.txt.journal.1"),
+                "# base 1" + System.lineSeparator() + "+ | T | 0 | b" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("barry-interrupted.txt.journal"),
+                "# base 2" + System.lineSeparator() + "M | 1" + System.lineSeparator());
+
+        ArrayList<Task> loaded = new Storage(file.toString(), StorageOptions.defaults().withJournal(true)).load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("b", loaded.get(1).getName());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    void writeBehind_burstOfSaves_coalescesIntoFewFlushes() throws Exception {
+        Path file = tempDir.resolve("barry-write-behind.txt");
+        StorageOptions options = StorageOptions.defaults().withJournal(true).withWriteBehind(60_000, 1_000_000);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList tasks = new TaskList(storage.load());
+
+        for (int i = 0; i < 500; i++) {
+            tasks.addTask(new ToDo("task " + i));
+            storage.save(tasks);
+        }
+        storage.flush();
+
+        assertEquals(500, storage.getSaveRequestCount());
+        assertTrue(storage.getFlushCount() < storage.getSaveRequestCount());
+        assertEquals(500, new Storage(file.toString(), options).load().size());
+    }
+
+    @Test
+    void writeBehind_dirtyCountReached_flushesInBackground() throws Exception {
+        Path file = tempDir.resolve("barry-write-behind-count.txt");
+        Storage storage = new Storage(file.toString(), StorageOptions.defaults().withWriteBehind(60_000, 2));
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new ToDo("a"));
+        storage.save(tasks);
+        tasks.addTask(new ToDo("b"));
+        storage.save(tasks);
+
+        for (int i = 0; i < 200 && storage.getFlushCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, storage.getFlushCount());
+        assertEquals(2, new Storage(file.toString()).load().size());
+    }
+
+    @Test
+    void concurrentSaves_groupCommitted_persistEveryTask() throws Exception {
+        Path file = tempDir.resolve("barry-group-commit.txt");
+        StorageOptions options = StorageOptions.defaults().withJournal(true);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new ToDo("seed"));
+        storage.save(tasks);
+
+        Thread[] savers = new Thread[8];
+        for (int t = 0; t < savers.length; t++) {
+            int threadNumber = t;
+            savers[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    tasks.addTask(new ToDo("task " + threadNumber + "-" + i));
+                    try {
+                        storage.save(tasks);
+                    } catch (BarryException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            savers[t].start();
+        }
+        for (Thread saver : savers) {
+            saver.join();
+        }
+
+        assertEquals(401, storage.getSaveRequestCount());
+        assertEquals(401, new Storage(file.toString(), options).load().size());
+    }
+
+    @Test
+    void load_tornFinalJournalRecordAndLeftoverTempFile_ignoresBoth() throws Exception {
+        Path file = tempDir.resolve("barry-torn.txt");
+        Files.writeString(file, "# gen 1" + System.lineSeparator() + "T | 0 | a" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("barry-torn.txt.tmp"), "T | 0 | half-writ");
+        Files.writeString(tempDir.resolve("barry-torn.txt.journal"),
+                "# base 1" + System.lineSeparator() + "M | 0" + System.lineSeparator() + "+ | T | 0 | b");
+
+        ArrayList<Task> loaded = new Storage(file.toString(), StorageOptions.defaults().withJournal(true)).load();
+
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    void binaryFormat_saveAndLoad_roundTripsAllTaskTypes() throws Exception {
+        Path file = tempDir.resolve("barry-binary.dat");
+        StorageOptions options = StorageOptions.defaults().withBinaryFormat(true);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList toSave = new TaskList();
+        Task deadline = new Deadline("submit été report", LocalDateTime.of(1969, 7, 20, 20, 17));
+        deadline.restoreDoneState(true);
+        toSave.addTask(new ToDo("read"));
+        toSave.addTask(deadline);
+        toSave.addTask(new Event("meeting", LocalDateTime.of(2026, 2, 1, 12, 0),
+                LocalDateTime.of(2026, 2, 3, 13, 30)));
+
+        storage.save(toSave);
+        ArrayList<Task> loaded = new Storage(file.toString()).load();
+
+        assertEquals('B', Files.readAllBytes(file)[0]);
+        assertEquals(3, loaded.size());
+        assertEquals("read", loaded.get(0).getName());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals("submit été report", loaded.get(1).getName());
+        assertEquals(LocalDateTime.of(1969, 7, 20, 20, 17), ((Deadline) loaded.get(1)).getBy());
+        assertEquals(LocalDateTime.of(2026, 2, 3, 13, 30), ((Event) loaded.get(2)).getTo());
+    }
+
+    @Test
+    void binaryFormat_textSnapshot_migratedOnFirstSave() throws Exception {
+        Path file = tempDir.resolve("barry-migrate.txt");
+        Files.writeString(file, "T | 1 | a" + System.lineSeparator() + "D | 0 | b | 2026-02-01 1000"
+                + System.lineSeparator());
+        StorageOptions options = StorageOptions.defaults().withJournal(true).withBinaryFormat(true);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new ToDo("c"));
+        storage.save(tasks);
+        tasks.markTask(2);
+        storage.save(tasks);
+        ArrayList<Task> loaded = new Storage(file.toString(), options).load();
+
+        assertEquals('B', Files.readAllBytes(file)[0]);
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertTrue(loaded.get(2).isDone());
+    }
+
+    @Test
+    void binaryFormat_truncatedFile_throwsBarryException() throws Exception {
+        Path file = tempDir.resolve("barry-truncated.dat");
+        Storage storage = new Storage(file.toString(), StorageOptions.defaults().withBinaryFormat(true));
+        storage.save(new TaskList(List.of(new ToDo("a long description"))));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(BarryException.class, () -> new Storage(file.toString()).load());
+    }
+
+    @Test
+    void recordFormat_markAfterLoad_rewritesOneByteInPlace() throws Exception {
+        Path file = tempDir.resolve("barry-records.dat");
+        StorageOptions options = StorageOptions.defaults().withRecordFormat(true);
+        Storage storage = new Storage(file.toString(), options);
+        storage.save(new TaskList(List.of(new ToDo("a"), new Deadline("b", LocalDateTime.of(2026, 2, 1, 10, 0)),
+                new Event("c", LocalDateTime.of(2026, 2, 1, 12, 0), LocalDateTime.of(2026, 2, 1, 13, 0)))));
+        TaskList tasks = new TaskList(storage.load());
+        byte[] before = Files.readAllBytes(file);
+
+        tasks.markTask(1);
+        storage.save(tasks);
+        byte[] after = Files.readAllBytes(file);
+
+        assertEquals(before.length, after.length);
+        int changedBytes = 0;
+        for (int i = 0; i < before.length; i++) {
+            changedBytes += before[i] == after[i] ? 0 : 1;
+        }
+        assertEquals(1, changedBytes);
+        ArrayList<Task> loaded = new Storage(file.toString(), options).load();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals(LocalDateTime.of(2026, 2, 1, 13, 0), ((Event) loaded.get(2)).getTo());
+    }
+
+    @Test
+    void recordFormat_addsAndDeletes_appendThenReclaimTombstones() throws Exception {
+        Path file = tempDir.resolve("barry-records-tombstones.dat");
+        StorageOptions options = StorageOptions.defaults().withRecordFormat(true);
+        Storage storage = new Storage(file.toString(), options);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 100; i++) {
+            tasks.addTask(new ToDo("task " + i));
+        }
+        storage.save(tasks);
+        long sizeBefore = Files.size(file);
+
+        tasks.addTask(new ToDo("tail"));
+        tasks.removeTask(0);
+        storage.save(tasks);
+
+        assertEquals(sizeBefore + "tail".length(), Files.size(file));
+        ArrayList<Task> loaded = new Storage(file.toString(), options).load();
+        assertEquals(100, loaded.size());
+        assertEquals("task 1", loaded.get(0).getName());
+        assertEquals("tail", loaded.get(99).getName());
+
+        for (int i = 0; i < 90; i++) {
+            tasks.removeTask(0);
+            storage.save(tasks);
+        }
+
+        assertTrue(Files.size(file) < sizeBefore);
+        loaded = new Storage(file.toString(), options).load();
+        assertEquals(10, loaded.size());
+        assertEquals("task 91", loaded.get(0).getName());
+    }
+
+    @Test
+    void recordFile_mixedBatch_appliedWholeAndRollbackDiscarded() throws Exception {
+        Path file = tempDir.resolve("barry-records-batch.dat");
+        TaskList tasks = new TaskList(List.of(new ToDo("a"), new ToDo("b"), new ToDo("c")));
+        RecordFile records = RecordFile.create(file, tasks.snapshot(), 1, tasks.getNextId());
+        tasks.drainChanges();
+
+        tasks.addTask(new ToDo("d"));
+        tasks.markTask(1);
+        tasks.removeTask(0);
+        records.apply(tasks.drainChanges(), tasks.getNextId());
+
+        assertTrue(!Files.exists(tempDir.resolve("barry-records-batch.dat.rollback")));
+        ArrayList<Task> loaded = new ArrayList<>();
+        RecordFile.open(file, loaded);
+        assertEquals(List.of("[T][X] b", "[T][ ] c", "[T][ ] d"), loaded.stream().map(Task::toString).toList());
+    }
+
+    @Test
+    void recordFile_batchFailsBeforeWriting_leftAsItWasAndCanRetry() throws Exception {
+        Path file = tempDir.resolve("barry-records-failed.dat");
+        Path rollback = tempDir.resolve("barry-records-failed.dat.rollback");
+        TaskList tasks = new TaskList(List.of(new ToDo("a"), new ToDo("b"), new ToDo("c")));
+        RecordFile records = RecordFile.create(file, tasks.snapshot(), 1, tasks.getNextId());
+        tasks.drainChanges();
+        byte[] before = Files.readAllBytes(file);
+        tasks.addTask(new ToDo("d"));
+        tasks.removeTask(0);
+        tasks.markTask(0);
+        List<TaskChange> changes = tasks.drainChanges();
+        long nextId = tasks.getNextId();
+        // A directory in the way of the rollback file makes the batch fail before the data file is touched.
+        Files.createDirectory(rollback);
+
+        assertThrows(IOException.class, () -> records.apply(changes, nextId));
+
+        assertArrayEquals(before, Files.readAllBytes(file));
+        Files.delete(rollback);
+        records.apply(changes, nextId);
+        ArrayList<Task> loaded = new ArrayList<>();
+        RecordFile.open(file, loaded);
+        assertEquals(List.of("[T][X] b", "[T][ ] c", "[T][ ] d"), loaded.stream().map(Task::toString).toList());
+    }
+
+    @Test
+    void incrementalSave_appendMarkAndDelete_matchesFullRewrite() throws Exception {
+        Path file = tempDir.resolve("barry-incremental.txt");
+        Path expectedFile = tempDir.resolve("barry-incremental-expected.txt");
+        Storage storage = new Storage(file.toString(), StorageOptions.defaults().withIncrementalSave(true));
+        TaskList tasks = new TaskList(List.of(new ToDo("a"), new ToDo("bé"), new ToDo("c")));
+        storage.save(tasks);
+
+        tasks.addTask(new Deadline("d", LocalDateTime.of(2026, 2, 1, 10, 0)));
+        storage.save(tasks);
+        tasks.markTask(1);
+        storage.save(tasks);
+        tasks.removeTask(2);
+        tasks.unmarkTask(1);
+        storage.save(tasks);
+        new Storage(expectedFile.toString()).save(tasks);
+
+        assertEquals(Files.readString(expectedFile), Files.readString(file));
+        assertTrue(!Files.exists(tempDir.resolve("barry-incremental.txt.rollback")));
+    }
+
+    @Test
+    void restoredVersion_taskPutBackInMiddle_savedInEveryFormat() throws Exception {
+        List<StorageOptions> formats = List.of(StorageOptions.defaults().withIncrementalSave(true),
+                StorageOptions.defaults().withJournal(true), StorageOptions.defaults().withRecordFormat(true));
+        for (int i = 0; i < formats.size(); i++) {
+            Path file = tempDir.resolve("barry-restored-" + i + ".txt");
+            Storage storage = new Storage(file.toString(), formats.get(i));
+            TaskList tasks = TaskList.versioned(List.of(new ToDo("a"), new ToDo("b"), new ToDo("c")));
+            storage.save(tasks);
+            TaskList.Version before = tasks.currentVersion();
+            tasks.removeAll(new int[] {0, 1});
+            tasks.markTask(0);
+            storage.save(tasks);
+
+            tasks.restore(before);
+            storage.save(tasks);
+
+            List<String> loaded = new Storage(file.toString(), formats.get(i)).load().stream()
+                    .map(Task::toString).toList();
+            assertEquals(List.of("[T][ ] a", "[T][ ] b", "[T][ ] c"), loaded);
+        }
+    }
+
+    @Test
+    void taskIds_deleteHighestThenReloadAndAdd_neverReusedInEveryFormat() throws Exception {
+        List<StorageOptions> formats = List.of(StorageOptions.defaults(),
+                StorageOptions.defaults().withIncrementalSave(true), StorageOptions.defaults().withJournal(true),
+                StorageOptions.defaults().withBinaryFormat(true), StorageOptions.defaults().withRecordFormat(true));
+        for (int i = 0; i < formats.size(); i++) {
+            Path file = tempDir.resolve("barry-ids-" + i + ".txt");
+            Storage storage = new Storage(file.toString(), formats.get(i));
+            TaskList tasks = new TaskList(storage.load());
+            tasks.addTask(new ToDo("a"));
+            tasks.addTask(new Deadline("b", LocalDateTime.of(2026, 2, 1, 10, 0)));
+            tasks.addTask(new ToDo("c"));
+            storage.save(tasks);
+            tasks.removeTask(0);
+            tasks.addTask(new Event("d", LocalDateTime.of(2026, 2, 1, 12, 0), LocalDateTime.of(2026, 2, 1, 13, 0)));
+            storage.save(tasks);
+            tasks.removeTask(2);
+            storage.save(tasks);
+
+            Storage reloadedStorage = new Storage(file.toString(), formats.get(i));
+            TaskList reloaded = reload(reloadedStorage);
+            reloaded.addTask(new ToDo("e"));
+            long firstNewId = reloaded.getTask(2).getId();
+            reloaded.removeTask(2);
+            reloadedStorage.save(reloaded);
+            TaskList reloadedAgain = reload(new Storage(file.toString(), formats.get(i)));
+            reloadedAgain.addTask(new ToDo("f"));
+
+            assertTrue(firstNewId > 4);
+            assertTrue(reloadedAgain.getTask(2).getId() > firstNewId);
+            List<Long> ids = reloadedAgain.snapshot().stream().map(Task::getId).toList();
+            assertEquals(List.of(2L, 3L, 6L), ids);
+            assertEquals(1, reloadedAgain.findPositionById(3));
+        }
+    }
+
+    private static TaskList reload(Storage storage) throws BarryException {
+        TaskList tasks = new TaskList(storage.load());
+        tasks.reserveIdsBelow(storage.getNextId());
+        return tasks;
+    }
+
+    @Test
+    void incrementalSave_nextIdGainsDigit_matchesFullRewrite() throws Exception {
+        Path file = tempDir.resolve("barry-next-id-digits.txt");
+        Path expectedFile = tempDir.resolve("barry-next-id-digits-expected.txt");
+        Storage storage = new Storage(file.toString(), StorageOptions.defaults().withIncrementalSave(true));
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 12; i++) {
+            tasks.addTask(new ToDo("task " + i));
+            storage.save(tasks);
+        }
+        tasks.removeTask(11);
+        storage.save(tasks);
+        new Storage(expectedFile.toString()).save(tasks);
+
+        assertEquals(Files.readString(expectedFile), Files.readString(file));
+        assertTrue(Files.readString(file).startsWith("# next 13"));
+    }
+
+    @Test
+    void load_twoTasksWithSameId_throwsBarryException() throws Exception {
+        Path file = tempDir.resolve("barry-duplicate-ids.txt");
+        Files.writeString(file, "4 | T | 0 | a" + System.lineSeparator() + "4 | T | 1 | b" + System.lineSeparator());
+
+        BarryException e = assertThrows(BarryException.class, () -> new Storage(file.toString()).load());
+
+        assertEquals("Duplicate task ID in data file: 4", e.getMessage());
+    }
+
+    @Test
+    void load_filesSavedWithoutIds_givesIdsInListOrderAndRewritesOnFirstSave() throws Exception {
+        Path textFile = tempDir.resolve("barry-legacy.txt");
+        Files.writeString(textFile, "# gen 1" + System.lineSeparator() + "T | 1 | a" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("barry-legacy.txt.journal"),
+                "# base 1" + System.lineSeparator() + "+ | T | 0 | b" + System.lineSeparator());
+        Storage textStorage = new Storage(textFile.toString(), StorageOptions.defaults().withJournal(true));
+        TaskList textTasks = new TaskList(textStorage.load());
+        textTasks.addTask(new ToDo("c"));
+        textStorage.save(textTasks);
+
+        String rewritten = Files.readString(textFile);
+        assertTrue(rewritten.contains("1 | T | 1 | a") && rewritten.contains("2 | T | 0 | b"));
+        assertTrue(rewritten.contains("3 | T | 0 | c"));
+
+        Path binaryFile = tempDir.resolve("barry-legacy.dat");
+        byte[] name = "a".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer legacy = ByteBuffer.allocate(4 + Long.BYTES + Integer.BYTES + 2 + name.length);
+        legacy.put(new byte[] {'B', 'R', 'Y', '1'}).putLong(0).putInt(1).put((byte) 0x80).put((byte) name.length);
+        Files.write(binaryFile, legacy.put(name).array());
+        Storage binaryStorage = new Storage(binaryFile.toString(), StorageOptions.defaults().withBinaryFormat(true));
+        TaskList binaryTasks = new TaskList(binaryStorage.load());
+        binaryTasks.addTask(new ToDo("b"));
+        binaryStorage.save(binaryTasks);
+
+        assertEquals('3', Files.readAllBytes(binaryFile)[3]);
+        List<Task> loaded = new Storage(binaryFile.toString()).load();
+        assertEquals(List.of("[T][X] a", "[T][ ] b"), loaded.stream().map(Task::toString).toList());
+        assertEquals(List.of(1L, 2L), loaded.stream().map(Task::getId).toList());
+        BarryException e = assertThrows(BarryException.class, () -> binaryStorage.parseLineToTasks("0 | T | 0 | a"));
+        assertEquals("Corrupted task ID in line: 0 | T | 0 | a", e.getMessage());
+    }
+
+    @Test
+    void load_leftoverRollback_restoresFileFromBeforeInterruptedSave() throws Exception {
+        Path file = tempDir.resolve("barry-rollback.txt");
+        byte[] before = ("T | 0 | a" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        Files.writeString(file, "T | 1 | a" + System.lineSeparator() + "T | 0 | half-wri");
+        ByteBuffer rollback = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES + before.length);
+        rollback.putLong(before.length).putLong(0).putInt(before.length).put(before);
+        Files.write(tempDir.resolve("barry-rollback.txt.rollback"), rollback.array());
+
+        ArrayList<Task> loaded = new Storage(file.toString()).load();
+
+        assertEquals(1, loaded.size());
+        assertTrue(!loaded.get(0).isDone());
+        assertTrue(!Files.exists(tempDir.resolve("barry-rollback.txt.rollback")));
+    }
 }
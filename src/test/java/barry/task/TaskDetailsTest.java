@@ -1,6 +1,8 @@
 package barry.task;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
@@ -49,4 +51,28 @@ class TaskDetailsTest {
 
         assertFalse(todo.hasSameDetails(deadline));
     }
+
+    @Test
+    void getDetails_sameEventFields_equalWithSameHash() {
+        Task a = new Event("meeting", LocalDateTime.of(2026, 2, 1, 10, 0),
+                LocalDateTime.of(2026, 2, 1, 12, 0));
+        Task b = new Event("meeting", LocalDateTime.of(2026, 2, 1, 10, 0),
+                LocalDateTime.of(2026, 2, 1, 12, 0));
+        Task later = new Event("meeting", LocalDateTime.of(2026, 2, 1, 10, 0),
+                LocalDateTime.of(2026, 2, 1, 13, 0));
+
+        assertEquals(a.getDetails(), b.getDetails());
+        assertEquals(a.getDetails().hashCode(), b.getDetails().hashCode());
+        assertNotEquals(a.getDetails(), later.getDetails());
+    }
+
+    @Test
+    void deadline_secondsInDueTime_droppedAndEqualToEpochMinuteFactory() {
+        Task withSeconds = new Deadline("submit", LocalDateTime.of(2026, 2, 1, 10, 0, 59));
+        Deadline fromMinutes = Deadline.ofEpochMinutes("submit", 29_499_000L);
+
+        assertEquals(LocalDateTime.of(2026, 2, 1, 10, 0), fromMinutes.getBy());
+        assertTrue(withSeconds.hasSameDetails(fromMinutes));
+        assertEquals(withSeconds.toString(), fromMinutes.toString());
+    }
 }
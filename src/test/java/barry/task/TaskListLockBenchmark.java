@@ -0,0 +1,107 @@
+package barry.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures read and write throughput of a shared {@link TaskList} while reader threads query it and one writer
+ * marks and unmarks a task every 50 us. This is a harness rather than a test: run it by hand, e.g.
+ * {@code java -cp build/classes/java/main:build/classes/java/test barry.task.TaskListLockBenchmark find}.
+ *
+ * <p>The mode is {@code get} (readers call {@link TaskList#getTask(int)}), {@code find} (readers call
+ * {@link TaskList#findByKeyword(String)}), or {@code locked} (readers call {@code getTask} inside
+ * {@code synchronized (list)}, which is how callers had to read consistently before the list had its own lock;
+ * run it against an older build to compare). For each reader count the list is measured twice for two seconds
+ * and the second run is reported. Results depend heavily on the number of cores.</p>
+ */
+public class TaskListLockBenchmark {
+    private static final int TASK_COUNT = 10_000;
+    private static final long WRITE_INTERVAL_NANOS = 50_000;
+    private static final long RUN_MILLIS = 2_000;
+    private static final int[] READER_COUNTS = {1, 4, 16};
+
+    /**
+     * Runs the benchmark and prints one line per reader count.
+     *
+     * @param args The mode: {@code get}, {@code find} or {@code locked}. Defaults to {@code get}.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String mode = args.length > 0 ? args[0] : "get";
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            tasks.add(new ToDo("task " + i));
+        }
+        TaskList list = new TaskList(tasks);
+        for (int readers : READER_COUNTS) {
+            long[] result = new long[2];
+            for (int round = 0; round < 2; round++) {
+                result = run(list, mode, readers);
+            }
+            System.out.printf("mode=%s readers=%d reads/s=%.3fM writes/s=%d%n", mode, readers,
+                    result[0] * 1000.0 / RUN_MILLIS / 1e6, result[1] * 1000 / RUN_MILLIS);
+        }
+    }
+
+    /**
+     * Runs the readers and the writer for {@link #RUN_MILLIS} and returns the numbers of reads and writes.
+     */
+    private static long[] run(TaskList list, String mode, int readerCount) throws InterruptedException {
+        AtomicBoolean isStopped = new AtomicBoolean();
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; !isStopped.get(); i++) {
+                int index = (i * 7919) % TASK_COUNT;
+                if (i % 2 == 0) {
+                    list.markTask(index);
+                } else {
+                    list.unmarkTask(index);
+                }
+                list.drainChanges();
+                writes.increment();
+                LockSupport.parkNanos(WRITE_INTERVAL_NANOS);
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < readerCount; r++) {
+            long seed = r * 31L + 7;
+            readers.add(new Thread(() -> read(list, mode, seed, isStopped, reads)));
+        }
+        writer.start();
+        readers.forEach(Thread::start);
+        Thread.sleep(RUN_MILLIS);
+        isStopped.set(true);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        return new long[] {reads.sum(), writes.sum()};
+    }
+
+    private static void read(TaskList list, String mode, long seed, AtomicBoolean isStopped, LongAdder reads) {
+        long state = seed;
+        long count = 0;
+        while (!isStopped.get()) {
+            state = state * 6364136223846793005L + 1442695040888963407L;
+            int index = (int) ((state >>> 33) % list.size());
+            switch (mode) {
+            case "find":
+                list.findByKeyword("task " + (index % 97) + "1");
+                break;
+            case "locked":
+                synchronized (list) {
+                    list.getTask(index);
+                }
+                break;
+            default:
+                list.getTask(index);
+                break;
+            }
+            count++;
+        }
+        reads.add(count);
+    }
+}
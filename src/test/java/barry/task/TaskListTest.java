@@ -1,10 +1,20 @@
 package barry.task;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
@@ -54,4 +64,596 @@ class TaskListTest {
         assertEquals(3, matches.get(1).index1Based);
         assertTrue(matches.get(0).task.getName().toLowerCase().contains("book"));
     }
+
+    @Test
+    void findByKeyword_afterRemovals_matchesSubstringScan() {
+        TaskList list = new TaskList(List.of(new ToDo("notebook"), new ToDo("Read Book")));
+        for (int i = 0; i < 200; i++) {
+            list.addTask(new ToDo(i % 3 == 0 ? "buy book " + i : "walk dog " + i));
+        }
+        for (int i = 0; i < 150; i++) {
+            list.removeTask(i % list.size());
+        }
+
+        for (String keyword : List.of("BOOK", "ook", "1", "dog 4", "", "  ", "missing")) {
+            List<TaskList.IndexedTask> matches = list.findByKeyword(keyword);
+            int expectedCount = 0;
+            for (int i = 0; i < list.size(); i++) {
+                if (list.getTask(i).getName().toLowerCase().contains(keyword.toLowerCase())) {
+                    TaskList.IndexedTask match = matches.get(expectedCount++);
+                    assertEquals(i + 1, match.index1Based);
+                    assertSame(list.getTask(i), match.task);
+                }
+            }
+            assertEquals(expectedCount, matches.size());
+        }
+    }
+
+    @Test
+    void findByKeyword_allTrigramsButNoSubstring_excludesTask() {
+        TaskList list = new TaskList(List.of(new ToDo("abcbcd"), new ToDo("pay abcd bill"), new ToDo("xabcdx")));
+
+        List<TaskList.IndexedTask> matches = list.findByKeyword("ABCD");
+        List<TaskList.IndexedTask> phraseMatches = list.findByKeyword("y abcd b");
+
+        assertEquals(2, matches.size());
+        assertEquals(2, matches.get(0).index1Based);
+        assertEquals(3, matches.get(1).index1Based);
+        assertEquals(1, phraseMatches.size());
+        assertEquals(2, phraseMatches.get(0).index1Based);
+    }
+
+    @Test
+    void containsSameDetails_tracksAddsAndRemovalsOfDuplicates() {
+        TaskList list = new TaskList(List.of(new ToDo("read"), new ToDo("read")));
+        list.addTask(new Deadline("read", LocalDateTime.of(2026, 2, 1, 10, 0)));
+
+        assertTrue(list.containsSameDetails(new ToDo("read")));
+        assertTrue(list.containsSameDetails(new Deadline("read", LocalDateTime.of(2026, 2, 1, 10, 0))));
+        assertFalse(list.containsSameDetails(new Deadline("read", LocalDateTime.of(2026, 2, 2, 10, 0))));
+
+        list.removeTask(0);
+        assertTrue(list.containsSameDetails(new ToDo("read")));
+        list.removeTask(0);
+        assertFalse(list.containsSameDetails(new ToDo("read")));
+    }
+
+    @Test
+    void dateQueries_deadlines_useDueTimeAndDoneState() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 10, 12, 0);
+        TaskList list = new TaskList(List.of(
+                new Deadline("late report", now.minusDays(2)),
+                new Deadline("late but done", now.minusDays(1)),
+                new ToDo("no date"),
+                new Deadline("due now", now),
+                new Deadline("due later today", now.plusHours(3)),
+                new Deadline("next week", now.plusDays(7))));
+        list.markTask(1);
+
+        List<TaskList.IndexedTask> overdue = list.findOverdue(now);
+        List<TaskList.IndexedTask> upcoming = list.findUpcoming(now, 2);
+        List<TaskList.IndexedTask> dueToday = list.findDeadlinesDue(now.toLocalDate().atStartOfDay(),
+                now.toLocalDate().plusDays(1).atStartOfDay());
+
+        assertEquals(List.of(1), overdue.stream().map(match -> match.index1Based).toList());
+        assertEquals(List.of(4, 5), upcoming.stream().map(match -> match.index1Based).toList());
+        assertEquals(List.of(4, 5), dueToday.stream().map(match -> match.index1Based).toList());
+
+        list.removeTask(0);
+        assertTrue(list.findOverdue(now).isEmpty());
+        assertEquals(List.of(3, 4, 5), list.findUpcoming(now, 10).stream().map(match -> match.index1Based).toList());
+    }
+
+    @Test
+    void findEventsDuring_randomEvents_matchesOverlapScan() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(10_000));
+            list.addTask(new Event("event " + i, start, start.plusMinutes(1 + random.nextInt(600))));
+        }
+        for (int i = 0; i < 150; i++) {
+            list.removeTask(random.nextInt(list.size()));
+        }
+
+        for (int query = 0; query < 50; query++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(10_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(300));
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                Event event = (Event) list.getTask(i);
+                if (event.getFrom().isBefore(to) && event.getTo().isAfter(from)) {
+                    expected.add(i + 1);
+                }
+            }
+
+            List<Integer> actual = new ArrayList<>(list.findEventsDuring(from, to).stream()
+                    .map(match -> match.index1Based).toList());
+            actual.sort(null);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void findEventConflicts_randomEvents_matchesPairwiseCheck() {
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 120; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(5_000));
+            list.addTask(new Event("event " + i, start, start.plusMinutes(1 + random.nextInt(200))));
+            if (i % 3 == 0) {
+                list.addTask(new ToDo("todo " + i));
+            }
+        }
+        list.removeTask(5);
+
+        List<String> expected = new ArrayList<>();
+        for (int later = 0; later < list.size(); later++) {
+            for (int earlier = 0; earlier < list.size(); earlier++) {
+                if (list.getTask(later) instanceof Event b && list.getTask(earlier) instanceof Event a
+                        && earlier != later && a.getFrom().isBefore(b.getTo()) && b.getFrom().isBefore(a.getTo())
+                        && (a.getFrom().isBefore(b.getFrom()) || a.getFrom().equals(b.getFrom()) && earlier < later)) {
+                    expected.add((earlier + 1) + "-" + (later + 1));
+                }
+            }
+        }
+        List<String> actual = new ArrayList<>(list.findEventConflicts().stream()
+                .map(conflict -> conflict.first.index1Based + "-" + conflict.second.index1Based).toList());
+
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void findScheduled_deadlinesAndEvents_orderedByTime() {
+        LocalDateTime day = LocalDateTime.of(2026, 3, 10, 0, 0);
+        TaskList list = new TaskList(List.of(
+                new Deadline("submit", day.plusHours(12)),
+                new Event("overnight watch", day.minusHours(2), day.plusHours(6)),
+                new Event("lunch", day.plusHours(12), day.plusHours(13)),
+                new Event("yesterday", day.minusHours(5), day),
+                new Deadline("tomorrow", day.plusDays(1))));
+
+        List<TaskList.IndexedTask> scheduled = list.findScheduled(day, day.plusDays(1));
+
+        assertEquals(List.of(2, 1, 3), scheduled.stream().map(match -> match.index1Based).toList());
+    }
+
+    @Test
+    void findFreeSlots_overlappingEvents_mergesBusyTime() {
+        LocalDateTime day = LocalDateTime.of(2026, 3, 10, 0, 0);
+        TaskList list = new TaskList(List.of(
+                new Event("overnight", day.minusHours(1), day.plusHours(8)),
+                new Event("standup", day.plusHours(9), day.plusHours(10)),
+                new Event("workshop", day.plusHours(9).plusMinutes(30), day.plusHours(12)),
+                new Event("coffee", day.plusHours(12).plusMinutes(20), day.plusHours(12).plusMinutes(30)),
+                new Deadline("report", day.plusHours(15)),
+                new Event("late", day.plusHours(22), day.plusHours(26))));
+
+        List<TaskList.TimeSlot> slots = list.findFreeSlots(day, day.plusDays(1), Duration.ofMinutes(30));
+
+        assertEquals(List.of(day.plusHours(8), day.plusHours(12).plusMinutes(30)),
+                slots.stream().map(slot -> slot.start).toList());
+        assertEquals(List.of(day.plusHours(9), day.plusHours(22)), slots.stream().map(slot -> slot.end).toList());
+        assertEquals(3, list.findFreeSlots(day, day.plusDays(1), Duration.ofMinutes(1)).size());
+    }
+
+    @Test
+    void drainChanges_afterMutations_reportsChangesOnce() {
+        TaskList list = new TaskList(List.of(new ToDo("loaded")));
+        list.addTask(new ToDo("new"));
+        list.markTask(1);
+        list.removeTask(0);
+
+        List<TaskChange> changes = list.drainChanges();
+
+        assertEquals(3, changes.size());
+        assertEquals(TaskChange.Kind.ADD, changes.get(0).kind);
+        assertEquals(1, changes.get(0).index);
+        assertEquals(TaskChange.Kind.MARK, changes.get(1).kind);
+        assertEquals(TaskChange.Kind.REMOVE, changes.get(2).kind);
+        assertEquals(0, changes.get(2).index);
+        assertTrue(list.drainChanges().isEmpty());
+    }
+
+    @Test
+    void removeAll_severalIndexes_compactsListAndRecordsRemovalsFromLast() {
+        TaskList list = new TaskList(List.of(new ToDo("a1"), new ToDo("b2"), new ToDo("a3"), new ToDo("b4")));
+        List<Task> snapshot = list.snapshot();
+
+        List<Task> removed = list.removeAll(new int[] {0, 2, 3});
+        List<TaskChange> changes = list.drainChanges();
+
+        assertEquals(List.of("a1", "a3", "b4"), removed.stream().map(Task::getName).toList());
+        assertEquals(1, list.size());
+        assertEquals("b2", list.getTask(0).getName());
+        assertEquals(4, snapshot.size());
+        assertEquals(List.of(3, 2, 0), changes.stream().map(change -> change.index).toList());
+        assertEquals(1, list.findByKeyword("b").size());
+        assertEquals(1, list.findByKeyword("b").get(0).index1Based);
+        assertFalse(list.containsSameDetails(new ToDo("a1")));
+    }
+
+    @Test
+    void snapshot_laterStructuralChanges_doNotAffectSnapshot() {
+        TaskList list = new TaskList(List.of(new ToDo("a"), new ToDo("b")));
+
+        List<Task> snapshot = list.snapshot();
+        list.removeTask(0);
+        list.addTask(new ToDo("c"));
+
+        assertEquals(2, snapshot.size());
+        assertEquals("a", snapshot.get(0).getName());
+        assertEquals("b", list.getTask(0).getName());
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    void columnar_randomOperations_matchesObjectList() {
+        Random random = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TaskList objects = new TaskList();
+        TaskList columns = TaskList.columnar(List.of());
+        for (int step = 0; step < 600; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || objects.size() == 0) {
+                LocalDateTime start = base.plusMinutes(random.nextInt(5_000));
+                String name = "task " + random.nextInt(200) + (choice == 0 ? " café" : "");
+                int type = random.nextInt(3);
+                Task task = type == 0 ? new ToDo(name)
+                        : type == 1 ? new Deadline(name, start)
+                        : new Event(name, start, start.plusMinutes(1 + random.nextInt(300)));
+                objects.addTask(task);
+                columns.addTask(task);
+            } else if (choice < 8) {
+                int index = random.nextInt(objects.size());
+                objects.removeTask(index);
+                columns.removeTask(index);
+            } else {
+                int index = random.nextInt(objects.size());
+                assertEquals(objects.markTask(index).toString(), columns.markTask(index).toString());
+            }
+        }
+
+        assertEquals(objects.size(), columns.size());
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals(objects.getTask(i).toString(), columns.getTask(i).toString());
+            assertTrue(columns.containsSameDetails(objects.getTask(i)));
+        }
+        assertEquals(objects.findByKeyword("café").size(), columns.findByKeyword("café").size());
+        assertEquals(objects.findByKeyword("sk 1").stream().map(match -> match.index1Based).toList(),
+                columns.findByKeyword("sk 1").stream().map(match -> match.index1Based).toList());
+        LocalDateTime now = base.plusMinutes(2_500);
+        assertEquals(objects.findOverdue(now).stream().map(match -> match.index1Based).toList(),
+                columns.findOverdue(now).stream().map(match -> match.index1Based).toList());
+        assertEquals(objects.findScheduled(base, now).stream().map(match -> match.index1Based).toList(),
+                columns.findScheduled(base, now).stream().map(match -> match.index1Based).toList());
+        assertEquals(objects.findEventConflicts().size(), columns.findEventConflicts().size());
+    }
+
+    @Test
+    void columnar_snapshotAfterRemovals_keepsOriginalTasks() {
+        TaskList list = TaskList.columnar(List.of(new ToDo("a"),
+                new Deadline("b", LocalDateTime.of(2026, 2, 1, 9, 30)), new ToDo("c")));
+
+        List<Task> snapshot = list.snapshot();
+        list.removeAll(new int[] {0, 1});
+        list.addTask(new ToDo("d"));
+        list.markTask(0);
+
+        assertEquals(3, snapshot.size());
+        assertEquals("[D][ ] b (by: Feb 01 2026 09:30)", snapshot.get(1).toString());
+        assertEquals("[T][X] c", list.getTask(0).toString());
+        assertEquals("d", list.getTask(1).getName());
+        assertThrows(IllegalArgumentException.class, () -> list.addTask(new Task("plain") { }));
+    }
+
+    @Test
+    void versioned_restoreRandomVersions_matchesPastListsAndRecordedChanges() {
+        Random random = new Random(23);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TaskList list = TaskList.versioned(List.of(new ToDo("task 0")));
+        List<TaskList.Version> versions = new ArrayList<>();
+        List<List<String>> contents = new ArrayList<>();
+        List<String> persisted = new ArrayList<>(List.of("[T][ ] task 0"));
+        for (int step = 0; step < 600; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || list.size() == 0) {
+                LocalDateTime start = base.plusMinutes(random.nextInt(5_000));
+                String name = "task " + random.nextInt(200);
+                int type = random.nextInt(3);
+                list.addTask(type == 0 ? new ToDo(name)
+                        : type == 1 ? new Deadline(name, start)
+                        : new Event(name, start, start.plusMinutes(1 + random.nextInt(300))));
+            } else if (choice < 8) {
+                list.removeTask(random.nextInt(list.size()));
+            } else if (choice == 8) {
+                list.markTask(random.nextInt(list.size()));
+            } else {
+                list.unmarkTask(random.nextInt(list.size()));
+            }
+            versions.add(list.currentVersion());
+            contents.add(toStrings(list.snapshot()));
+        }
+        replay(persisted, list.drainChanges());
+
+        for (int i = 0; i < 200; i++) {
+            int target = random.nextInt(versions.size());
+            list.restore(versions.get(target));
+            assertEquals(contents.get(target), toStrings(list.snapshot()));
+            replay(persisted, list.drainChanges());
+            assertEquals(contents.get(target), persisted);
+
+            TaskList rebuilt = new TaskList(list.snapshot());
+            assertEquals(indexesOf(rebuilt.findByKeyword("sk 1")), indexesOf(list.findByKeyword("sk 1")));
+            LocalDateTime now = base.plusMinutes(2_500);
+            assertEquals(indexesOf(rebuilt.findOverdue(now)), indexesOf(list.findOverdue(now)));
+            assertEquals(indexesOf(rebuilt.findScheduled(base, now)), indexesOf(list.findScheduled(base, now)));
+            assertEquals(rebuilt.findEventConflicts().size(), list.findEventConflicts().size());
+            for (int j = 0; j < list.size(); j++) {
+                assertTrue(list.containsSameDetails(rebuilt.getTask(j)));
+            }
+        }
+    }
+
+    @Test
+    void versioned_markAfterTakingVersion_leavesVersionAndReadTaskUnchanged() {
+        TaskList list = TaskList.versioned(List.of(new ToDo("a"), new ToDo("b")));
+        TaskList.Version before = list.currentVersion();
+        Task read = list.getTask(1);
+
+        Task marked = list.markTask(1);
+        list.restore(before);
+
+        assertEquals("[T][X] b", marked.toString());
+        assertEquals("[T][ ] b", read.toString());
+        assertEquals("[T][ ] b", list.getTask(1).toString());
+        assertEquals(before, list.currentVersion());
+        assertThrows(UnsupportedOperationException.class, () -> new TaskList().currentVersion());
+    }
+
+    @Test
+    void findPositionById_randomRemovalsInEveryStore_findsLiveTasksByTheirFirstId() {
+        Random random = new Random(31);
+        for (TaskList list : List.of(new TaskList(), TaskList.columnar(List.of()), TaskList.versioned(List.of()))) {
+            List<Long> liveIds = new ArrayList<>();
+            List<Long> removedIds = new ArrayList<>();
+            for (int step = 0; step < 1_000; step++) {
+                if (random.nextInt(3) > 0 || list.size() == 0) {
+                    list.addTask(new ToDo("task " + step));
+                    liveIds.add(list.getTask(list.size() - 1).getId());
+                } else {
+                    int index = random.nextInt(list.size());
+                    list.removeTask(index);
+                    removedIds.add(liveIds.remove(index));
+                }
+            }
+
+            Set<Long> allIds = new HashSet<>(liveIds);
+            allIds.addAll(removedIds);
+            assertEquals(liveIds.size() + removedIds.size(), allIds.size());
+            for (int i = 0; i < liveIds.size(); i++) {
+                assertEquals(i, list.findPositionById(liveIds.get(i)));
+                assertEquals((long) liveIds.get(i), list.markTask(i).getId());
+            }
+            for (long id : removedIds) {
+                assertEquals(-1, list.findPositionById(id));
+            }
+            assertEquals(-1, list.findPositionById(1_000_000));
+        }
+    }
+
+    @Test
+    void versioned_restoreAfterDeleteAndAdd_bringsBackIdsWithoutReusingThem() {
+        TaskList list = TaskList.versioned(List.of(new ToDo("a"), new ToDo("b")));
+        long removedId = list.getTask(0).getId();
+        TaskList.Version before = list.currentVersion();
+
+        list.removeTask(0);
+        list.addTask(new ToDo("c"));
+        long addedId = list.getTask(1).getId();
+        list.restore(before);
+
+        assertTrue(addedId > removedId && addedId > list.getTask(1).getId());
+        assertEquals(0, list.findPositionById(removedId));
+        assertEquals(-1, list.findPositionById(addedId));
+        TaskList reloaded = new TaskList(List.of(new ToDo("x"), list.getTask(1), new ToDo("y")));
+        assertEquals(List.of(3L, 2L, 4L), List.of(reloaded.getTask(0).getId(), reloaded.getTask(1).getId(),
+                reloaded.getTask(2).getId()));
+    }
+
+    @Test
+    void countDoneAndFindByDoneState_randomChangesInEveryStore_matchScanOfTasks() {
+        Random random = new Random(37);
+        List<TaskList> lists = List.of(new TaskList(), TaskList.columnar(List.of()), TaskList.versioned(List.of()));
+        for (TaskList list : lists) {
+            boolean isVersioned = list == lists.get(2);
+            List<TaskList.Version> versions = new ArrayList<>();
+            for (int step = 0; step < 2_000; step++) {
+                int choice = random.nextInt(10);
+                if (choice < 4 || list.size() == 0) {
+                    Task task = new ToDo("task " + step);
+                    if (random.nextBoolean()) {
+                        task.mark();
+                    }
+                    list.addTask(task);
+                } else if (choice == 4) {
+                    list.removeTask(random.nextInt(list.size()));
+                } else if (choice == 5) {
+                    BitSet positions = new BitSet();
+                    for (int i = 0; i < list.size(); i++) {
+                        if (random.nextInt(8) == 0) {
+                            positions.set(i);
+                        }
+                    }
+                    list.removeAll(positions);
+                } else if (choice < 8) {
+                    list.markTask(random.nextInt(list.size()));
+                } else if (choice == 8) {
+                    list.unmarkTask(random.nextInt(list.size()));
+                } else if (!versions.isEmpty()) {
+                    list.restore(versions.get(random.nextInt(versions.size())));
+                }
+                if (isVersioned) {
+                    versions.add(list.currentVersion());
+                }
+
+                List<Integer> done = new ArrayList<>();
+                List<Integer> pending = new ArrayList<>();
+                for (int i = 0; i < list.size(); i++) {
+                    (list.getTask(i).isDone() ? done : pending).add(i + 1);
+                }
+                assertEquals(done.size(), list.countDone());
+                assertEquals(done, indexesOf(list.findByDoneState(true)));
+                assertEquals(pending, indexesOf(list.findByDoneState(false)));
+            }
+        }
+    }
+
+    @Test
+    void restoreDoneState_taskInEveryStore_rejectedSoCountStaysInStep() {
+        for (TaskList list : List.of(new TaskList(), TaskList.columnar(List.of()), TaskList.versioned(List.of()))) {
+            Task loaded = new ToDo("loaded");
+            loaded.restoreDoneState(true);
+            list.addTask(loaded);
+            list.addTask(new ToDo("added"));
+
+            assertThrows(IllegalStateException.class, () -> list.getTask(1).restoreDoneState(true));
+            assertThrows(IllegalStateException.class, () -> list.getTask(0).restoreDoneState(false));
+            assertEquals(1, list.countDone());
+            assertThrows(IllegalStateException.class, () -> list.markTask(1).restoreDoneState(false));
+            assertEquals(2, list.countDone());
+            assertEquals(List.of(1, 2), indexesOf(list.findByDoneState(true)));
+        }
+    }
+
+    @Test
+    void columnarStore_removeSharedNames_countsSharedBytesOnce() {
+        ColumnarTaskStore store = new ColumnarTaskStore(0);
+        String longName = "x".repeat(300);
+        for (int i = 0; i < 40; i++) {
+            store.add(new ToDo("standup"), i);
+            if (i > 0) {
+                store.shareName(i, 0);
+            }
+        }
+        store.add(new ToDo(longName), 40);
+        assertEquals(307, store.arenaUsed());
+
+        BitSet oneSharer = new BitSet();
+        oneSharer.set(5);
+        store.removeAll(oneSharer);
+        assertEquals(307, store.arenaUsed());
+
+        BitSet owner = new BitSet();
+        owner.set(0);
+        store.removeAll(owner);
+        assertEquals(307, store.arenaUsed());
+        assertEquals("standup", store.getName(0));
+
+        BitSet allSharers = new BitSet();
+        allSharers.set(0, 38);
+        store.removeAll(allSharers);
+        assertEquals(307, store.arenaUsed());
+        assertEquals(longName, store.getName(0));
+
+        store.removeAll(owner);
+        assertEquals(0, store.arenaUsed());
+    }
+
+    @Test
+    void columnarStore_compactWithEmptyName_keepsFollowingName() {
+        ColumnarTaskStore store = new ColumnarTaskStore(0);
+        store.add(new ToDo("removed description"), 0);
+        store.add(new ToDo(""), 1);
+        store.add(new ToDo("next"), 2);
+
+        BitSet first = new BitSet();
+        first.set(0);
+        store.removeAll(first);
+
+        assertEquals(4, store.arenaUsed());
+        assertEquals("", store.getName(0));
+        assertEquals("next", store.getName(1));
+    }
+
+    @Test
+    void constructorAndAddTask_repeatedDescriptions_shareOneString() {
+        TaskList list = new TaskList(List.of(new ToDo(new String("standup")),
+                new Deadline("report", LocalDateTime.of(2026, 2, 1, 9, 0)), new ToDo(new String("standup"))));
+        list.addTask(new Deadline(new String("standup"), LocalDateTime.of(2026, 2, 2, 9, 0)));
+
+        assertSame(list.getTask(0).getName(), list.getTask(2).getName());
+        assertSame(list.getTask(0).getName(), list.getTask(3).getName());
+        TaskList.DescriptionMemory memory = list.measureDescriptions();
+        assertEquals(4, memory.taskCount);
+        assertEquals(memory.unsharedBytes, memory.bytesUsed + 2 * TaskStore.sizeOfString("standup"));
+    }
+
+    @Test
+    void atomically_concurrentCheckThenAdd_addsEachTaskOnce() throws Exception {
+        TaskList list = new TaskList();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        Task task = new ToDo("task " + i);
+                        list.atomically(() -> {
+                            if (!list.containsSameDetails(task)) {
+                                list.addTask(task);
+                            }
+                            return null;
+                        });
+                        int size = list.size();
+                        Task read = list.getTask(size - 1);
+                        assertTrue(read.getName().startsWith("task "));
+                        list.findByKeyword("task 4");
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), failures);
+        assertEquals(500, list.size());
+        assertEquals(111, list.findByKeyword("task 4").size());
+    }
+
+    private static List<String> toStrings(List<Task> tasks) {
+        return tasks.stream().map(Task::toString).toList();
+    }
+
+    private static List<Integer> indexesOf(List<TaskList.IndexedTask> matches) {
+        return matches.stream().map(match -> match.index1Based).toList();
+    }
+
+    private static void replay(List<String> lines, List<TaskChange> changes) {
+        for (TaskChange change : changes) {
+            switch (change.kind) {
+            case ADD:
+            case INSERT:
+                lines.add(change.index, change.task.toString());
+                break;
+            case MARK:
+                lines.set(change.index, lines.get(change.index).replace("][ ]", "][X]"));
+                break;
+            case UNMARK:
+                lines.set(change.index, lines.get(change.index).replace("][X]", "][ ]"));
+                break;
+            default:
+                lines.remove(change.index);
+                break;
+            }
+        }
+    }
 }